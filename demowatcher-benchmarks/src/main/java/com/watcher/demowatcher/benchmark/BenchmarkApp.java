@@ -0,0 +1,52 @@
+package com.watcher.demowatcher.benchmark;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.watcher.demowatcher.DemowatcherApplication;
+
+// Boots the whole app for the runs that need its database: an in-memory H2 in
+// MySQL mode unless a JDBC URL is given, and every directory under one root.
+final class BenchmarkApp {
+
+    static final String H2_URL = "jdbc:h2:mem:bench;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private BenchmarkApp() {
+    }
+
+    // Passed as command line arguments, which win over application.properties
+    static ConfigurableApplicationContext boot(Path root, String jdbcUrl, String jdbcUser, String jdbcPassword,
+                                               Map<String, String> overrides) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        // The app logs every file it registers and processes, which would be measured along with it
+        properties.put("logging.level.com.watcher.demowatcher", "WARN");
+        properties.put("spring.datasource.url", jdbcUrl);
+        properties.put("spring.datasource.username", jdbcUser);
+        properties.put("spring.datasource.password", jdbcPassword);
+        // Only the throwaway in-memory schema is recreated, a real database keeps ddl-auto=update
+        if (jdbcUrl.startsWith("jdbc:h2:")) {
+            properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+            properties.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+            properties.put("spring.jpa.hibernate.ddl-auto", "create");
+        }
+        properties.put("app.upload.dir", root.resolve("inbox").toString());
+        properties.put("app.upload.staging-dir", root.resolve("staging").toString());
+        properties.put("app.processed.dir", root.resolve("processed").toString());
+        properties.put("app.failed.dir", root.resolve("failed").toString());
+        properties.put("app.archive.dir", root.resolve("archive").toString());
+        properties.put("app.pipeline.spill.dir", root.resolve("spill").toString());
+        properties.put("app.text-store.dir", root.resolve("text-store").toString());
+        properties.putAll(overrides);
+
+        List<String> args = new ArrayList<>();
+        properties.forEach((name, value) -> args.add("--" + name + "=" + value));
+        return new SpringApplicationBuilder(DemowatcherApplication.class).run(args.toArray(String[]::new));
+    }
+}
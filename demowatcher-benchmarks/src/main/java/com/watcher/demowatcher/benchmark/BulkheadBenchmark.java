@@ -0,0 +1,194 @@
+package com.watcher.demowatcher.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.watcher.demowatcher.constants.ExecutionMode;
+import com.watcher.demowatcher.constants.ProcessingStatus;
+import com.watcher.demowatcher.model.Document;
+import com.watcher.demowatcher.repository.DocumentRepository;
+import com.watcher.demowatcher.service.DocumentDispatcher;
+import com.watcher.demowatcher.service.DocumentIngestService;
+
+// Platform pools against virtual threads with the real processors. Each shot
+// dispatches a set of small CSV, PDF, Excel and image documents (40/20/20/20),
+// registered beforehand, to DocumentDispatcher and waits until every one has
+// finished. The score is the time for the whole set; documents per second and
+// the p50/p99 of dispatch-to-processedAt are printed after each shot.
+//
+// On JDK 23 PDFBox and POI pin the carrier inside synchronized blocks, which
+// caps what VIRTUAL gains on those types. To see where, run with
+//   -jvmArgsAppend -Djdk.tracePinnedThreads=short
+// or record jdk.VirtualThreadPinned with -prof jfr. The concurrency in VIRTUAL
+// mode is app.processing.*.virtual-permits, set per type in application.properties.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class BulkheadBenchmark {
+
+    private static final String[] TYPES = { "csv", "csv", "pdf", "xlsx", "image" };
+
+    @Param({ "PLATFORM", "VIRTUAL" })
+    private ExecutionMode mode;
+
+    @Param({ "10000" })
+    private int documents;
+
+    @Param({ BenchmarkApp.H2_URL })
+    private String jdbcUrl;
+
+    @Param({ "sa" })
+    private String jdbcUser;
+
+    // A new in-memory H2 database takes whatever credentials open it first
+    @Param({ "sa" })
+    private String jdbcPassword;
+
+    private Path root;
+    private final Map<String, Path> templates = new HashMap<>();
+    private ConfigurableApplicationContext app;
+    private DocumentRepository documentRepository;
+    private DocumentIngestService documentIngestService;
+    private DocumentDispatcher documentDispatcher;
+
+    private int iteration;
+    private List<Document> registered;
+    private final Map<Long, Long> dispatchedAtMillis = new HashMap<>();
+    private final List<Long> createdIds = new ArrayList<>();
+    private long shotMillis;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Fixtures.tempDir("bulkhead");
+        Path dir = Files.createDirectories(root.resolve("templates"));
+        templates.put("csv", Fixtures.csv(dir, 16 * 1024));
+        templates.put("pdf", Fixtures.pdf(dir, 1));
+        templates.put("xlsx", Fixtures.xlsx(dir, 1, 100));
+        templates.put("image", Fixtures.image(dir, 320, 240, "jpg"));
+
+        // Every copy has the same bytes, so duplicate detection would skip the parsing
+        app = BenchmarkApp.boot(root, jdbcUrl, jdbcUser, jdbcPassword, Map.of(
+                "app.processing.mode", mode.name(),
+                "app.dedup.enabled", "false",
+                "app.startup.reconcile.enabled", "false"));
+        documentRepository = app.getBean(DocumentRepository.class);
+        documentIngestService = app.getBean(DocumentIngestService.class);
+        documentDispatcher = app.getBean(DocumentDispatcher.class);
+    }
+
+    // Copies and registers a fresh set outside the watched inbox, so only the processing is timed
+    @Setup(Level.Iteration)
+    public void register() throws IOException {
+        Path dir = Files.createDirectories(root.resolve("files").resolve(String.valueOf(++iteration)));
+        List<Path> batch = new ArrayList<>(100);
+        registered = new ArrayList<>(documents);
+        for (int i = 0; i < documents; i++) {
+            String type = TYPES[i % TYPES.length];
+            Path template = templates.get(type);
+            String name = template.getFileName().toString();
+            Path file = dir.resolve(String.format("doc-%06d%s", i, name.substring(name.lastIndexOf('.'))));
+            Files.copy(template, file);
+            batch.add(file);
+            if (batch.size() == 100 || i == documents - 1) {
+                registered.addAll(documentIngestService.registerFiles(batch));
+                batch.clear();
+            }
+        }
+        for (Document document : registered) {
+            createdIds.add(document.getId());
+        }
+        dispatchedAtMillis.clear();
+    }
+
+    @Benchmark
+    public long processAll() throws InterruptedException {
+        long finishedBefore = finishedCount();
+        long start = System.currentTimeMillis();
+        for (Document document : registered) {
+            dispatchedAtMillis.put(document.getId(), System.currentTimeMillis());
+            documentDispatcher.dispatch(document);
+        }
+        long target = finishedBefore + registered.size();
+        long finished;
+        while ((finished = finishedCount()) < target) {
+            Thread.sleep(20);
+        }
+        shotMillis = System.currentTimeMillis() - start;
+        return finished;
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() throws IOException {
+        List<Long> ids = new ArrayList<>(dispatchedAtMillis.keySet());
+        long[] latencies = new long[ids.size()];
+        int count = 0;
+        for (int from = 0; from < ids.size(); from += 1000) {
+            for (Document document : documentRepository.findAllById(ids.subList(from, Math.min(from + 1000, ids.size())))) {
+                if (document.getProcessedAt() != null) {
+                    long processedAt = document.getProcessedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                    latencies[count++] = processedAt - dispatchedAtMillis.get(document.getId());
+                }
+            }
+        }
+        Arrays.sort(latencies, 0, count);
+        System.out.printf("%n%s: %d documents in %d ms, %.0f documents/s, p50 %d ms, p99 %d ms%n", mode,
+                          registered.size(), shotMillis, registered.size() * 1000.0 / Math.max(1, shotMillis),
+                          percentile(latencies, count, 0.50), percentile(latencies, count, 0.99));
+
+        // The processed copies are not needed again and a few passes of 10k add up
+        Fixtures.deleteRecursively(root.resolve("files"));
+        Fixtures.deleteRecursively(root.resolve("processed"));
+        Fixtures.deleteRecursively(root.resolve("failed"));
+    }
+
+    private long finishedCount() {
+        return documentRepository.countByProcessingStatus(ProcessingStatus.COMPLETED)
+             + documentRepository.countByProcessingStatus(ProcessingStatus.FAILED);
+    }
+
+    private static long percentile(long[] sorted, int count, double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        return sorted[Math.min(count - 1, (int) Math.ceil(quantile * count) - 1)];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try {
+            // A real database keeps its rows, so take back what the trial wrote
+            for (int from = 0; from < createdIds.size(); from += 1000) {
+                documentRepository.deleteAllByIdInBatch(createdIds.subList(from, Math.min(from + 1000, createdIds.size())));
+            }
+        } finally {
+            app.close();
+            Fixtures.deleteRecursively(root);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.watcher.demowatcher.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.watcher.demowatcher.constants.FileType;
+import com.watcher.demowatcher.model.Document;
+import com.watcher.demowatcher.service.CsvProcessorService;
+
+import tools.jackson.databind.ObjectMapper;
+
+// threads=1 is the single buffered pass, anything above forces the range-parallel
+// path so the MB/s comparison against core count can be read off one run
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class CsvProcessorBenchmark {
+
+    @Param({ "1", "64", "512" })
+    private int sizeMb;
+
+    @Param({ "1", "4" })
+    private int threads;
+
+    private Path dir;
+    private Document document;
+    private CsvProcessorService service;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Fixtures.tempDir("csv");
+        document = Fixtures.document(Fixtures.csv(dir, sizeMb * 1024L * 1024L), FileType.CSV);
+
+        service = new CsvProcessorService(new ObjectMapper());
+        ReflectionTestUtils.setField(service, "parallelEnabled", threads > 1);
+        ReflectionTestUtils.setField(service, "parallelThresholdMb", 0L);
+        ReflectionTestUtils.setField(service, "chunkMb", Math.max(1L, sizeMb / (threads * 4L)));
+        ReflectionTestUtils.setField(service, "parallelThreads", threads);
+        service.init();
+    }
+
+    @Benchmark
+    public String processCsv(ProcessedBytes processed, PeakHeap peakHeap) {
+        processed.bytes += document.getFileSize();
+        return service.processCsv(document);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        service.shutdown();
+        Fixtures.deleteRecursively(dir);
+    }
+}
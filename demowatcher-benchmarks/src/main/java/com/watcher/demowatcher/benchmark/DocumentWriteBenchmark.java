@@ -0,0 +1,173 @@
+package com.watcher.demowatcher.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.watcher.demowatcher.constants.FileType;
+import com.watcher.demowatcher.constants.ProcessingStatus;
+import com.watcher.demowatcher.model.Document;
+import com.watcher.demowatcher.repository.DocumentRepository;
+import com.watcher.demowatcher.service.DocumentStatusWriter;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// Database writes per processed document. BASELINE is the old path: findById, then
+// full-entity saves for PROCESSING, the metadata and COMPLETED. LEAN is the current
+// one: the PROCESSING transition queued for the batched UPDATE, then one final
+// UPDATE. Both insert their rows the same way, one batch per invocation, so only
+// the per-document writes differ. The score is documents per second; prepared
+// statements per document are printed at the end of each trial.
+//
+//   java -jar target/benchmarks.jar DocumentWriteBenchmark \
+//        -p jdbcUrl='jdbc:mysql://localhost:3306/bench?createDatabaseIfNotExist=true&rewriteBatchedStatements=true' \
+//        -p jdbcUser=root -p jdbcPassword=secret
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(DocumentWriteBenchmark.BATCH)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Threads(4)
+@Fork(1)
+public class DocumentWriteBenchmark {
+
+    static final int BATCH = 100;
+
+    @Param({ "BASELINE", "LEAN" })
+    private String path;
+
+    @Param({ BenchmarkApp.H2_URL })
+    private String jdbcUrl;
+
+    @Param({ "sa" })
+    private String jdbcUser;
+
+    // A new in-memory H2 database takes whatever credentials open it first
+    @Param({ "sa" })
+    private String jdbcPassword;
+
+    private Path root;
+    private ConfigurableApplicationContext app;
+    private DocumentRepository documentRepository;
+    private DocumentStatusWriter documentStatusWriter;
+    private Statistics statistics;
+    private String metadata;
+
+    private final LongAdder documents = new LongAdder();
+    private final Queue<Long> createdIds = new ConcurrentLinkedQueue<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Fixtures.tempDir("writes");
+        app = BenchmarkApp.boot(root, jdbcUrl, jdbcUser, jdbcPassword, Map.of(
+                "spring.jpa.properties.hibernate.generate_statistics", "true",
+                "app.startup.reconcile.enabled", "false",
+                "logging.level.com.watcher", "WARN"));
+        documentRepository = app.getBean(DocumentRepository.class);
+        documentStatusWriter = app.getBean(DocumentStatusWriter.class);
+        statistics = app.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        // About what a small CSV leaves behind, the TEXT column the old saves rewrote every time
+        StringBuilder json = new StringBuilder("{\"rows\":1200,\"columns\":[");
+        for (int i = 0; i < 24; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"name\":\"column_").append(i)
+                .append("\",\"type\":\"NUMERIC\",\"nulls\":0,\"distinct\":1187}");
+        }
+        metadata = json.append("]}").toString();
+        statistics.clear();
+    }
+
+    @Benchmark
+    public int process() {
+        List<Document> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            String name = "bench-" + UUID.randomUUID() + ".csv";
+            Document document = new Document();
+            document.setFileName(name);
+            document.setOriginalName(name);
+            document.setFileType(FileType.CSV);
+            document.setFileSize(48_000L);
+            document.setFilePath(root.resolve("inbox").resolve(name).toString());
+            document.setProcessingStatus(ProcessingStatus.PENDING);
+            batch.add(document);
+        }
+        List<Document> saved = documentRepository.saveAll(batch);
+
+        for (Document document : saved) {
+            createdIds.add(document.getId());
+            String processedPath = root.resolve("processed").resolve(document.getFileName()).toString();
+            if ("BASELINE".equals(path)) {
+                Document current = documentRepository.findById(document.getId()).orElseThrow();
+                current.setProcessingStatus(ProcessingStatus.PROCESSING);
+                current = documentRepository.save(current);
+                current.setMetadata(metadata);
+                current = documentRepository.save(current);
+                current.setProcessingStatus(ProcessingStatus.COMPLETED);
+                current.setProcessedAt(LocalDateTime.now());
+                current.setFilePath(processedPath);
+                documentRepository.save(current);
+            } else {
+                documentStatusWriter.markProcessing(document.getId());
+                documentRepository.finishProcessing(document.getId(), ProcessingStatus.COMPLETED, LocalDateTime.now(),
+                                                    metadata, null, processedPath, null, null);
+            }
+        }
+        documents.add(saved.size());
+        return saved.size();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        // Lets the last batched PROCESSING flush land so it is counted
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.printf("%n%s: %.2f prepared statements per document (%d documents)%n", path,
+                          (double) statistics.getPrepareStatementCount() / documents.sum(), documents.sum());
+        try {
+            // A real database keeps its rows, so take back what the trial wrote
+            List<Long> ids = new ArrayList<>(1000);
+            Long id;
+            while ((id = createdIds.poll()) != null) {
+                ids.add(id);
+                if (ids.size() == 1000 || createdIds.isEmpty()) {
+                    documentRepository.deleteAllByIdInBatch(ids);
+                    ids.clear();
+                }
+            }
+        } finally {
+            app.close();
+            Fixtures.deleteRecursively(root);
+        }
+    }
+}
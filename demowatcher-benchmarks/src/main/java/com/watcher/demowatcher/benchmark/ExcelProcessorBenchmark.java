@@ -0,0 +1,72 @@
+package com.watcher.demowatcher.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.watcher.demowatcher.constants.FileType;
+import com.watcher.demowatcher.model.Document;
+import com.watcher.demowatcher.service.ExcelProcessorService;
+
+import tools.jackson.databind.ObjectMapper;
+
+// Streaming .xlsx profile, sheets spread over the sheet pool. A small heap makes
+// any return to whole-workbook loading fail loudly instead of just running slower.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx256m")
+public class ExcelProcessorBenchmark {
+
+    @Param({ "1", "8" })
+    private int sheets;
+
+    @Param({ "1000", "50000" })
+    private int rowsPerSheet;
+
+    @Param({ "1", "4" })
+    private int threads;
+
+    private Path dir;
+    private Document document;
+    private ExcelProcessorService service;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Fixtures.tempDir("excel");
+        document = Fixtures.document(Fixtures.xlsx(dir, sheets, rowsPerSheet), FileType.EXCEL);
+
+        service = new ExcelProcessorService(new ObjectMapper());
+        ReflectionTestUtils.setField(service, "parallelThreads", threads);
+        service.init();
+    }
+
+    @Benchmark
+    public String processExcel(ProcessedBytes processed, PeakHeap peakHeap) {
+        processed.bytes += document.getFileSize();
+        return service.processExcel(document);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        service.shutdown();
+        Fixtures.deleteRecursively(dir);
+    }
+}
@@ -0,0 +1,40 @@
+package com.watcher.demowatcher.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.watcher.demowatcher.constants.FileType;
+
+// Runs once per watcher event, so it is on the hottest path of the intake thread
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileTypeBenchmark {
+
+    private final String[] names = {
+        "report.csv", "scan-0001.pdf", "Budget 2024.xlsx", "legacy.xls", "photo.jpeg", "IMG_2041.JPG",
+        "diagram.png", "notes.txt", "contract.final.v2.docx", "archive.tar.gz", "README", "data.part"
+    };
+
+    @Benchmark
+    @OperationsPerInvocation(12)
+    public void fromFileName(Blackhole blackhole) {
+        for (String name : names) {
+            blackhole.consume(FileType.fromFileName(name));
+        }
+    }
+}
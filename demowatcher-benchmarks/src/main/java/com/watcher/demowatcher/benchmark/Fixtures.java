@@ -0,0 +1,178 @@
+package com.watcher.demowatcher.benchmark;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import com.watcher.demowatcher.constants.FileType;
+import com.watcher.demowatcher.model.Document;
+
+// Generated input files. Seeded, so every run and fork sees the same bytes.
+final class Fixtures {
+
+    private static final String[] WORDS = {
+        "invoice", "shipment", "warehouse", "customer", "pending", "approved", "north", "south",
+        "quarterly", "revenue", "delta", "account", "ledger", "transfer", "batch", "report"
+    };
+
+    private Fixtures() {
+    }
+
+    static Path tempDir(String prefix) throws IOException {
+        return Files.createTempDirectory("demowatcher-bench-" + prefix);
+    }
+
+    static void deleteRecursively(Path dir) throws IOException {
+        if (dir == null || !Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    static Document document(Path file, FileType fileType) throws IOException {
+        Document document = new Document();
+        document.setId(1L);
+        document.setFileName(file.getFileName().toString());
+        document.setOriginalName(file.getFileName().toString());
+        document.setFileType(fileType);
+        document.setFileSize(Files.size(file));
+        document.setFilePath(file.toString());
+        return document;
+    }
+
+    // Mixed numeric, text, date, boolean and empty columns, with some quoted fields
+    // holding commas and line breaks so the parallel splitter has to respect quotes
+    static Path csv(Path dir, long targetBytes) throws IOException {
+        Path file = dir.resolve("fixture-" + targetBytes + ".csv");
+        Random random = new Random(42);
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        long written = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            String header = "id,name,amount,created,active,notes\n";
+            out.write(header);
+            written += header.length();
+            for (long id = 1; written < targetBytes; id++) {
+                StringBuilder row = new StringBuilder(96);
+                row.append(id).append(',')
+                   .append(WORDS[random.nextInt(WORDS.length)]).append(' ').append(WORDS[random.nextInt(WORDS.length)])
+                   .append(',').append(String.format("%.2f", random.nextDouble() * 10_000))
+                   .append(',').append(start.plusDays(random.nextInt(2000)))
+                   .append(',').append(random.nextBoolean())
+                   .append(',');
+                int notes = random.nextInt(20);
+                if (notes == 0) {
+                    row.append("\"multi-line, quoted\nnote ").append(id).append('"');
+                } else if (notes < 8) {
+                    row.append(WORDS[random.nextInt(WORDS.length)]);
+                }
+                row.append('\n');
+                out.write(row.toString());
+                written += row.length();
+            }
+        }
+        return file;
+    }
+
+    static Path xlsx(Path dir, int sheets, int rowsPerSheet) throws IOException {
+        Path file = dir.resolve("fixture-" + sheets + "x" + rowsPerSheet + ".xlsx");
+        Random random = new Random(42);
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(100);
+             OutputStream out = Files.newOutputStream(file)) {
+            for (int s = 0; s < sheets; s++) {
+                Sheet sheet = workbook.createSheet("Sheet" + (s + 1));
+                Row header = sheet.createRow(0);
+                String[] headers = { "id", "name", "amount", "quantity", "active", "notes" };
+                for (int c = 0; c < headers.length; c++) {
+                    header.createCell(c).setCellValue(headers[c]);
+                }
+                for (int r = 1; r <= rowsPerSheet; r++) {
+                    Row row = sheet.createRow(r);
+                    row.createCell(0).setCellValue(r);
+                    row.createCell(1).setCellValue(WORDS[random.nextInt(WORDS.length)]);
+                    row.createCell(2).setCellValue(random.nextDouble() * 10_000);
+                    row.createCell(3).setCellValue(random.nextInt(500));
+                    row.createCell(4).setCellValue(random.nextBoolean());
+                    // Sparse column
+                    if (random.nextInt(4) == 0) {
+                        row.createCell(5).setCellValue(WORDS[random.nextInt(WORDS.length)]);
+                    }
+                }
+            }
+            workbook.write(out);
+            workbook.dispose();
+        }
+        return file;
+    }
+
+    static Path pdf(Path dir, int pages) throws IOException {
+        Path file = dir.resolve("fixture-" + pages + ".pdf");
+        Random random = new Random(42);
+        PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+        try (PDDocument document = new PDDocument()) {
+            for (int p = 0; p < pages; p++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(font, 10);
+                    content.setLeading(12);
+                    content.newLineAtOffset(40, 750);
+                    for (int line = 0; line < 55; line++) {
+                        StringBuilder text = new StringBuilder();
+                        for (int w = 0; w < 12; w++) {
+                            text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+                        }
+                        content.showText(text.toString());
+                        content.newLine();
+                    }
+                    content.endText();
+                }
+            }
+            document.save(file.toFile());
+        }
+        return file;
+    }
+
+    // Gradient with noise, so JPEG cannot compress it to nothing
+    static Path image(Path dir, int width, int height, String format) throws IOException {
+        Path file = dir.resolve("fixture-" + width + "x" + height + "." + format);
+        Random random = new Random(42);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        for (int y = 0; y < height; y += 16) {
+            graphics.setColor(new Color((y * 255) / height, 128, 255 - (y * 255) / height));
+            graphics.fillRect(0, y, width, 16);
+        }
+        graphics.dispose();
+        for (int i = 0; i < width * height / 50; i++) {
+            image.setRGB(random.nextInt(width), random.nextInt(height), random.nextInt());
+        }
+        ImageIO.write(image, format, file.toFile());
+        return file;
+    }
+}
@@ -0,0 +1,66 @@
+package com.watcher.demowatcher.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.watcher.demowatcher.constants.FileType;
+import com.watcher.demowatcher.model.Document;
+import com.watcher.demowatcher.service.ImageProcessorService;
+
+// Header read plus one subsampled decode, peak heap should stay flat as the pixel count grows.
+// The heap is sized for building the 8192 px fixture, PeakHeap reports what processing used
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class ImageProcessorBenchmark {
+
+    @Param({ "1024", "4096", "8192" })
+    private int width;
+
+    @Param({ "jpg", "png" })
+    private String format;
+
+    private Path dir;
+    private Document document;
+    private ImageProcessorService service;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Fixtures.tempDir("image");
+        document = Fixtures.document(Fixtures.image(dir, width, width * 3 / 4, format), FileType.IMAGE);
+
+        service = new ImageProcessorService();
+        ReflectionTestUtils.setField(service, "processedDir", dir.resolve("processed").toString());
+        ReflectionTestUtils.setField(service, "thumbnailSize", 200);
+    }
+
+    @Benchmark
+    public String processImage(ProcessedBytes processed, PeakHeap peakHeap) {
+        processed.bytes += document.getFileSize();
+        return service.processImage(document);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Fixtures.deleteRecursively(dir);
+    }
+}
@@ -0,0 +1,418 @@
+package com.watcher.demowatcher.benchmark;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import com.watcher.demowatcher.constants.ProcessingStatus;
+import com.watcher.demowatcher.repository.DocumentRepository;
+import com.watcher.demowatcher.repository.DocumentSummary;
+
+import tools.jackson.databind.ObjectMapper;
+
+// End-to-end load run: boots the whole app against an in-memory H2 database (or
+// --jdbc-url), drops generated files into the watched inbox at a fixed rate and
+// size mix while concurrent clients POST to /api/documents/upload, then reports
+// arrival-to-COMPLETED latency percentiles, lost files and heap/GC as JSON.
+//
+//   java -cp target/benchmarks.jar com.watcher.demowatcher.benchmark.LoadHarness \
+//        --rate=50 --duration=60 --mix=csv:40,pdf:20,xlsx:20,image:20 --sizes=small:90,large:10 \
+//        --uploads=500 --upload-concurrency=8 --output=load-result.json
+public final class LoadHarness {
+
+    private static final String[] TYPES = { "csv", "pdf", "xlsx", "image" };
+    private static final int PAGE_SIZE = 1000;
+    private static final String[] SIZES = { "small", "large" };
+
+    private record Arrival(String name, String type, String size, String source, long arrivedAtMillis) {
+    }
+
+    private final Map<String, String> options;
+    // Every file of this run is named under it, so rows left by earlier runs in a kept database are never counted
+    private final String runPrefix = "load-" + Long.toString(System.currentTimeMillis(), 36)
+                                   + "-" + UUID.randomUUID().toString().substring(0, 8);
+    private final LocalDateTime runStartedAt = LocalDateTime.now();
+    private final Queue<Arrival> arrivals = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger dropErrors = new AtomicInteger();
+    private final AtomicInteger uploadErrors = new AtomicInteger();
+    private final AtomicInteger sequence = new AtomicInteger();
+    private final AtomicLong peakHeapBytes = new AtomicLong();
+
+    private LoadHarness(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("rate", "20");
+        options.put("duration", "30");
+        options.put("mix", "csv:40,pdf:20,xlsx:20,image:20");
+        options.put("sizes", "small:90,large:10");
+        options.put("uploads", "100");
+        options.put("upload-concurrency", "4");
+        options.put("drain-timeout", "300");
+        options.put("dedup", "false");
+        options.put("jdbc-url", BenchmarkApp.H2_URL);
+        options.put("jdbc-user", "sa");
+        options.put("jdbc-password", "");
+        options.put("output", "load-result.json");
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+        new LoadHarness(options).run();
+    }
+
+    private void run() throws Exception {
+        Path root = Fixtures.tempDir("load");
+        Map<String, Path> templates = prepareTemplates(root.resolve("templates"));
+        Path inbox = root.resolve("inbox");
+
+        ConfigurableApplicationContext app = boot(root);
+        try {
+            int port = Integer.parseInt(app.getEnvironment().getProperty("local.server.port"));
+            DocumentRepository documentRepository = app.getBean(DocumentRepository.class);
+
+            ScheduledExecutorService heapSampler = Executors.newSingleThreadScheduledExecutor();
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            heapSampler.scheduleAtFixedRate(
+                    () -> peakHeapBytes.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max),
+                    0, 100, TimeUnit.MILLISECONDS);
+            Map<String, long[]> gcBefore = gcCounters();
+
+            long start = System.currentTimeMillis();
+            Thread uploader = new Thread(() -> upload(templates, port), "load-uploader");
+            uploader.start();
+            drop(templates, inbox);
+            uploader.join();
+            long submittedAt = System.currentTimeMillis();
+
+            drain(documentRepository);
+            long drainedAt = System.currentTimeMillis();
+            heapSampler.shutdownNow();
+
+            Map<String, Object> result = report(documentRepository, start, submittedAt, drainedAt, gcBefore);
+            String json = new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(result);
+            Files.writeString(Path.of(options.get("output")), json);
+            System.out.println(json);
+        } finally {
+            app.close();
+            if (!Boolean.parseBoolean(options.getOrDefault("keep", "false"))) {
+                Fixtures.deleteRecursively(root);
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext boot(Path root) {
+        return BenchmarkApp.boot(root, options.get("jdbc-url"), options.get("jdbc-user"), options.get("jdbc-password"),
+                                 Map.of("app.dedup.enabled", options.get("dedup")));
+    }
+
+    // One file per type and size class, copied under a fresh name for every arrival
+    private Map<String, Path> prepareTemplates(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Map<String, Path> templates = new HashMap<>();
+        templates.put("csv/small", Fixtures.csv(dir, 100 * 1024));
+        templates.put("csv/large", Fixtures.csv(dir, 20 * 1024 * 1024));
+        templates.put("pdf/small", Fixtures.pdf(dir, 5));
+        templates.put("pdf/large", Fixtures.pdf(dir, 200));
+        templates.put("xlsx/small", Fixtures.xlsx(dir, 1, 500));
+        templates.put("xlsx/large", Fixtures.xlsx(dir, 4, 20_000));
+        templates.put("image/small", Fixtures.image(dir, 640, 480, "jpg"));
+        templates.put("image/large", Fixtures.image(dir, 4000, 3000, "jpg"));
+        return templates;
+    }
+
+    // Copies land as .tmp, which the watcher ignores, and are renamed into place,
+    // so the arrival time is the moment the complete file appears
+    private void drop(Map<String, Path> templates, Path inbox) throws InterruptedException {
+        int rate = Integer.parseInt(options.get("rate"));
+        int durationSeconds = Integer.parseInt(options.get("duration"));
+        if (rate <= 0 || durationSeconds <= 0) {
+            return;
+        }
+
+        Random random = new Random(7);
+        int[] typeWeights = weights(options.get("mix"), TYPES);
+        int[] sizeWeights = weights(options.get("sizes"), SIZES);
+        ExecutorService copiers = Executors.newFixedThreadPool(4);
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+        ticker.scheduleAtFixedRate(() -> {
+            String type = TYPES[pick(random, typeWeights)];
+            String size = SIZES[pick(random, sizeWeights)];
+            copiers.execute(() -> {
+                Path template = templates.get(type + "/" + size);
+                String name = nextName(type, size, template);
+                try {
+                    Path part = inbox.resolve(name + ".tmp");
+                    Files.copy(template, part);
+                    Files.move(part, inbox.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+                    arrivals.add(new Arrival(name, type, size, "watched", System.currentTimeMillis()));
+                } catch (IOException e) {
+                    dropErrors.incrementAndGet();
+                }
+            });
+        }, 0, 1_000_000_000L / rate, TimeUnit.NANOSECONDS);
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(durationSeconds));
+        ticker.shutdownNow();
+        copiers.shutdown();
+        copiers.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    private void upload(Map<String, Path> templates, int port) {
+        int total = Integer.parseInt(options.get("uploads"));
+        int concurrency = Integer.parseInt(options.get("upload-concurrency"));
+        if (total <= 0 || concurrency <= 0) {
+            return;
+        }
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        URI uri = URI.create("http://localhost:" + port + "/api/documents/upload");
+        int[] typeWeights = weights(options.get("mix"), TYPES);
+        int[] sizeWeights = weights(options.get("sizes"), SIZES);
+        AtomicInteger remaining = new AtomicInteger(total);
+
+        List<Thread> clients = new ArrayList<>();
+        for (int c = 0; c < concurrency; c++) {
+            Random random = new Random(100 + c);
+            Thread thread = new Thread(() -> {
+                while (remaining.getAndDecrement() > 0) {
+                    String type = TYPES[pick(random, typeWeights)];
+                    String size = SIZES[pick(random, sizeWeights)];
+                    Path template = templates.get(type + "/" + size);
+                    String name = nextName(type, size, template);
+                    String boundary = UUID.randomUUID().toString();
+                    long startedAt = System.currentTimeMillis();
+                    try {
+                        HttpRequest request = HttpRequest.newBuilder(uri)
+                                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                                .POST(HttpRequest.BodyPublishers.concat(
+                                        HttpRequest.BodyPublishers.ofString("--" + boundary + "\r\n"
+                                                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + name + "\"\r\n"
+                                                + "Content-Type: application/octet-stream\r\n\r\n"),
+                                        HttpRequest.BodyPublishers.ofFile(template),
+                                        HttpRequest.BodyPublishers.ofString("\r\n--" + boundary + "--\r\n")))
+                                .build();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() == 201) {
+                            arrivals.add(new Arrival(name, type, size, "uploaded", startedAt));
+                        } else {
+                            uploadErrors.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        uploadErrors.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }, "load-upload-" + c);
+            thread.start();
+            clients.add(thread);
+        }
+        for (Thread thread : clients) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // Waits until every arrival has a finished record, or the drain timeout runs out
+    private void drain(DocumentRepository documentRepository) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(Long.parseLong(options.get("drain-timeout")));
+        while (System.currentTimeMillis() < deadline) {
+            long finished = 0;
+            for (DocumentSummary document : runDocuments(documentRepository).values()) {
+                if (document.getProcessingStatus() == ProcessingStatus.COMPLETED
+                        || document.getProcessingStatus() == ProcessingStatus.FAILED) {
+                    finished++;
+                }
+            }
+            if (finished >= arrivals.size()) {
+                return;
+            }
+            Thread.sleep(250);
+        }
+    }
+
+    // This run's records by name. Listings are newest first, so the walk stops at the first
+    // row older than the run and never reads what earlier runs left in the table
+    private Map<String, DocumentSummary> runDocuments(DocumentRepository documentRepository) {
+        LocalDateTime oldest = runStartedAt.minusMinutes(1);
+        Map<String, DocumentSummary> byName = new HashMap<>();
+        LocalDateTime uploadedAt = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+        long id = Long.MAX_VALUE;
+        while (true) {
+            List<DocumentSummary> page = documentRepository.findSummariesBefore(uploadedAt, id, PageRequest.of(0, PAGE_SIZE));
+            for (DocumentSummary document : page) {
+                if (document.getUploadedAt().isBefore(oldest)) {
+                    return byName;
+                }
+                if (document.getOriginalName().startsWith(runPrefix)) {
+                    byName.put(document.getOriginalName(), document);
+                }
+            }
+            if (page.size() < PAGE_SIZE) {
+                return byName;
+            }
+            uploadedAt = page.get(page.size() - 1).getUploadedAt();
+            id = page.get(page.size() - 1).getId();
+        }
+    }
+
+    private Map<String, Object> report(DocumentRepository documentRepository, long start, long submittedAt,
+                                       long drainedAt, Map<String, long[]> gcBefore) {
+        Map<String, DocumentSummary> byName = runDocuments(documentRepository);
+
+        Map<String, List<Long>> latencies = new LinkedHashMap<>();
+        int completed = 0;
+        int failed = 0;
+        int stuck = 0;
+        int lost = 0;
+        long lastFinished = start;
+        for (Arrival arrival : arrivals) {
+            DocumentSummary document = byName.get(arrival.name());
+            if (document == null) {
+                lost++;
+                continue;
+            }
+            if (document.getProcessingStatus() == ProcessingStatus.FAILED) {
+                failed++;
+                continue;
+            }
+            if (document.getProcessingStatus() != ProcessingStatus.COMPLETED || document.getProcessedAt() == null) {
+                stuck++;
+                continue;
+            }
+            completed++;
+            long finishedAt = document.getProcessedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            lastFinished = Math.max(lastFinished, finishedAt);
+            long latency = Math.max(0, finishedAt - arrival.arrivedAtMillis());
+            for (String key : List.of("all", arrival.source(), arrival.type(), arrival.type() + "/" + arrival.size())) {
+                latencies.computeIfAbsent(key, k -> new ArrayList<>()).add(latency);
+            }
+        }
+
+        Map<String, Object> latencyMs = new LinkedHashMap<>();
+        latencies.forEach((key, values) -> latencyMs.put(key, percentiles(values)));
+
+        Map<String, Object> gc = new LinkedHashMap<>();
+        gcCounters().forEach((name, after) -> {
+            long[] before = gcBefore.getOrDefault(name, new long[2]);
+            gc.put(name, Map.of("collections", after[0] - before[0], "timeMs", after[1] - before[1]));
+        });
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("options", options);
+        result.put("runPrefix", runPrefix);
+        result.put("submitSeconds", (submittedAt - start) / 1000.0);
+        result.put("drainSeconds", (drainedAt - submittedAt) / 1000.0);
+        result.put("submitted", arrivals.size());
+        result.put("dropErrors", dropErrors.get());
+        result.put("uploadErrors", uploadErrors.get());
+        result.put("completed", completed);
+        result.put("failed", failed);
+        result.put("stuck", stuck);
+        result.put("lost", lost);
+        result.put("throughputPerSecond", completed / Math.max(0.001, (lastFinished - start) / 1000.0));
+        result.put("latencyMs", latencyMs);
+        result.put("peakHeapMb", peakHeapBytes.get() / (1024 * 1024));
+        result.put("maxHeapMb", Runtime.getRuntime().maxMemory() / (1024 * 1024));
+        result.put("gc", gc);
+        return result;
+    }
+
+    private static Map<String, Object> percentiles(List<Long> values) {
+        long[] sorted = values.stream().mapToLong(Long::longValue).sorted().toArray();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", sorted.length);
+        summary.put("p50", nearestRank(sorted, 0.50));
+        summary.put("p99", nearestRank(sorted, 0.99));
+        summary.put("p999", nearestRank(sorted, 0.999));
+        summary.put("max", sorted[sorted.length - 1]);
+        summary.put("mean", Arrays.stream(sorted).average().orElse(0));
+        return summary;
+    }
+
+    private static long nearestRank(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static Map<String, long[]> gcCounters() {
+        Map<String, long[]> counters = new LinkedHashMap<>();
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            counters.put(collector.getName(), new long[] { collector.getCollectionCount(), collector.getCollectionTime() });
+        }
+        return counters;
+    }
+
+    // "csv:40,pdf:20" -> weights in the order of names, missing names weigh 0
+    private static int[] weights(String spec, String[] names) {
+        int[] weights = new int[names.length];
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split(":");
+            int index = Arrays.asList(names).indexOf(parts[0]);
+            if (index < 0 || parts.length != 2) {
+                throw new IllegalArgumentException("Unknown mix entry " + entry + ", expected one of " + Arrays.toString(names));
+            }
+            weights[index] = Integer.parseInt(parts[1]);
+        }
+        return weights;
+    }
+
+    private static int pick(Random random, int[] weights) {
+        int total = Arrays.stream(weights).sum();
+        int roll = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            roll -= weights[i];
+            if (roll < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    private String nextName(String type, String size, Path template) {
+        String fileName = template.getFileName().toString();
+        String extension = fileName.substring(fileName.lastIndexOf('.'));
+        return String.format("%s-%07d-%s-%s%s", runPrefix, sequence.incrementAndGet(), type, size, extension);
+    }
+}
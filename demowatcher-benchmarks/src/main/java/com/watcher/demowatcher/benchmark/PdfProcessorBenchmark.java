@@ -0,0 +1,99 @@
+package com.watcher.demowatcher.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.watcher.demowatcher.constants.FileType;
+import com.watcher.demowatcher.model.Document;
+import com.watcher.demowatcher.service.ExtractedTextStore;
+import com.watcher.demowatcher.service.PdfProcessorService;
+
+// storeHit=false gives every run a fresh content hash, so the text is extracted
+// and stored each time; storeHit=true measures the path for already stored text
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx256m")
+public class PdfProcessorBenchmark {
+
+    @Param({ "10", "200", "1000" })
+    private int pages;
+
+    @Param({ "1", "4" })
+    private int threads;
+
+    @Param({ "false", "true" })
+    private boolean storeHit;
+
+    private Path dir;
+    private Document document;
+    private ExtractedTextStore store;
+    private PdfProcessorService service;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Fixtures.tempDir("pdf");
+        document = Fixtures.document(Fixtures.pdf(dir, pages), FileType.PDF);
+        document.setContentHash(randomHash());
+
+        store = new ExtractedTextStore();
+        ReflectionTestUtils.setField(store, "storeDir", dir.resolve("text-store").toString());
+        store.init();
+
+        service = new PdfProcessorService();
+        ReflectionTestUtils.setField(service, "extractedTextStore", store);
+        ReflectionTestUtils.setField(service, "minPagesPerRange", 50);
+        ReflectionTestUtils.setField(service, "parallelThreads", threads);
+        service.init();
+    }
+
+    @Benchmark
+    public String processPdf(ProcessedBytes processed, PeakHeap peakHeap) {
+        if (!storeHit) {
+            document.setContentHash(randomHash());
+        }
+        processed.bytes += document.getFileSize();
+        return service.processPdf(document);
+    }
+
+    // Extracted text piles up in the store without this
+    @TearDown(Level.Iteration)
+    public void clearStore() throws IOException {
+        if (!storeHit) {
+            Fixtures.deleteRecursively(dir.resolve("text-store"));
+            store.init();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        service.shutdown();
+        Fixtures.deleteRecursively(dir);
+    }
+
+    private static String randomHash() {
+        byte[] bytes = new byte[32];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return HexFormat.of().formatHex(bytes);
+    }
+}
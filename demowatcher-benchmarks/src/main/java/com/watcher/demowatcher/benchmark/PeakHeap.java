@@ -0,0 +1,58 @@
+package com.watcher.demowatcher.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// Peak heap in use, sampled every 10 ms as LoadHarness does and printed after each
+// iteration and for the whole trial. One per benchmark, however many threads run it.
+// Add it as a benchmark method parameter; -prof gc covers the allocation rate.
+@State(Scope.Benchmark)
+public class PeakHeap {
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final AtomicLong iterationPeak = new AtomicLong();
+    private long trialPeak;
+    private ScheduledExecutorService sampler;
+
+    @Setup(Level.Trial)
+    public void start() {
+        sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "PeakHeapSampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(
+                () -> iterationPeak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max),
+                0, 10, TimeUnit.MILLISECONDS);
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        System.gc();
+        iterationPeak.set(memory.getHeapMemoryUsage().getUsed());
+    }
+
+    @TearDown(Level.Iteration)
+    public void read() {
+        long peak = iterationPeak.get();
+        trialPeak = Math.max(trialPeak, peak);
+        System.out.printf("%npeak heap: %d MB%n", peak / (1024 * 1024));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        sampler.shutdownNow();
+        System.out.printf("%npeak heap over the trial: %d MB of %d MB max%n",
+                          trialPeak / (1024 * 1024), Runtime.getRuntime().maxMemory() / (1024 * 1024));
+    }
+}
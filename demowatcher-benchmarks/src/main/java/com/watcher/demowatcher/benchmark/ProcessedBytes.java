@@ -0,0 +1,13 @@
+package com.watcher.demowatcher.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+// Input bytes consumed, JMH reports it per second next to the ops/s score
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class ProcessedBytes {
+
+    public long bytes;
+}
@@ -0,0 +1,137 @@
+package com.watcher.demowatcher.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.watcher.demowatcher.constants.FileType;
+import com.watcher.demowatcher.constants.ProcessingStatus;
+import com.watcher.demowatcher.model.Document;
+import com.watcher.demowatcher.repository.DocumentRepository;
+import com.watcher.demowatcher.service.DocumentIngestService;
+
+// Rows per second for one persist batch of settled files. BATCH is registerFiles:
+// one transaction, one IN query for already registered paths and one JDBC batch
+// of inserts. PER_ROW builds the same records and saves them one at a time, each
+// save its own transaction and INSERT. The batch gain grows with the database
+// round trip, so compare on MySQL too (rewriteBatchedStatements=true on the URL):
+//
+//   java -jar target/benchmarks.jar RegisterFilesBenchmark \
+//        -p jdbcUrl='jdbc:mysql://localhost:3306/bench?createDatabaseIfNotExist=true&rewriteBatchedStatements=true' \
+//        -p jdbcUser=root -p jdbcPassword=secret
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(RegisterFilesBenchmark.BATCH)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class RegisterFilesBenchmark {
+
+    // The default app.pipeline.persist.batch-size
+    static final int BATCH = 100;
+
+    @Param({ "BATCH", "PER_ROW" })
+    private String mode;
+
+    @Param({ BenchmarkApp.H2_URL })
+    private String jdbcUrl;
+
+    @Param({ "sa" })
+    private String jdbcUser;
+
+    // A new in-memory H2 database takes whatever credentials open it first
+    @Param({ "sa" })
+    private String jdbcPassword;
+
+    private Path root;
+    private Path files;
+    private ConfigurableApplicationContext app;
+    private DocumentIngestService documentIngestService;
+    private DocumentRepository documentRepository;
+
+    private int sequence;
+    private final List<Path> paths = new ArrayList<>(BATCH);
+    private final List<Long> createdIds = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Fixtures.tempDir("register");
+        // Outside the watched inbox, so the watcher never registers them itself
+        files = Files.createDirectories(root.resolve("files"));
+        app = BenchmarkApp.boot(root, jdbcUrl, jdbcUser, jdbcPassword, Map.of(
+                "app.startup.reconcile.enabled", "false",
+                "logging.level.com.watcher", "WARN"));
+        documentIngestService = app.getBean(DocumentIngestService.class);
+        documentRepository = app.getBean(DocumentRepository.class);
+    }
+
+    // Every batch needs files without a record yet
+    @Setup(Level.Invocation)
+    public void nextBatch() throws IOException {
+        paths.clear();
+        for (int i = 0; i < BATCH; i++) {
+            Path file = files.resolve(String.format("register-%09d.csv", ++sequence));
+            Files.writeString(file, "id,name\n1,bench\n");
+            paths.add(file);
+        }
+    }
+
+    @Benchmark
+    public int register() throws IOException {
+        List<Document> saved;
+        if ("BATCH".equals(mode)) {
+            saved = documentIngestService.registerFiles(paths);
+        } else {
+            saved = new ArrayList<>(paths.size());
+            for (Path file : paths) {
+                String originalName = file.getFileName().toString();
+                Document document = new Document();
+                document.setFileName(originalName);
+                document.setOriginalName(originalName);
+                document.setFileType(FileType.fromFileName(originalName));
+                document.setFileSize(Files.size(file));
+                document.setFilePath(file.toString());
+                document.setProcessingStatus(ProcessingStatus.PENDING);
+                saved.add(documentRepository.save(document));
+            }
+        }
+        for (Document document : saved) {
+            createdIds.add(document.getId());
+        }
+        return saved.size();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try {
+            // A real database keeps its rows, so take back what the trial wrote
+            for (int from = 0; from < createdIds.size(); from += 1000) {
+                documentRepository.deleteAllByIdInBatch(createdIds.subList(from, Math.min(from + 1000, createdIds.size())));
+            }
+        } finally {
+            app.close();
+            Fixtures.deleteRecursively(root);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.watcher.demowatcher.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.watcher.demowatcher.service.UploadStorage;
+
+// The write-once, hash-on-the-way upload path with several uploads at once.
+// Peak heap should not grow with the upload size.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Threads(8)
+@Fork(value = 1, jvmArgsAppend = "-Xmx256m")
+public class UploadStorageBenchmark {
+
+    @Param({ "1", "20" })
+    private int sizeMb;
+
+    private Path dir;
+    private byte[] body;
+    private final UploadStorage storage = new UploadStorage();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Fixtures.tempDir("upload");
+        body = new byte[sizeMb * 1024 * 1024];
+        new Random(42).nextBytes(body);
+    }
+
+    @Benchmark
+    public UploadStorage.StoredUpload store(ProcessedBytes processed, PeakHeap peakHeap) throws IOException {
+        Path target = dir.resolve(UUID.randomUUID() + ".bin");
+        UploadStorage.StoredUpload stored = storage.store(new ByteArrayInputStream(body), target);
+        Files.delete(stored.path());
+        processed.bytes += stored.size();
+        return stored;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Fixtures.deleteRecursively(dir);
+    }
+}
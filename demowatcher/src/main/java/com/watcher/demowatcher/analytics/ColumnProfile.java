@@ -0,0 +1,204 @@
+package com.watcher.demowatcher.analytics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Single-pass statistics for one column in constant memory. Profiles built
+// over separate slices of the same data can be merged, which is what lets the
+// parallel readers split a file and combine the results afterwards.
+public class ColumnProfile {
+
+    public static final int TOP_K = 10;
+    private static final int TOP_K_CAPACITY = 64;
+
+    private final String name;
+
+    private long count;
+    private long nullCount;
+    private long integerCount;
+    private long decimalCount;
+    private long booleanCount;
+    private long textCount;
+
+    // Numeric values: Welford's running mean and sum of squared deviations
+    private long numericCount;
+    private double mean;
+    private double m2;
+    private double numericMin = Double.POSITIVE_INFINITY;
+    private double numericMax = Double.NEGATIVE_INFINITY;
+
+    // Everything else is compared as text
+    private String textMin;
+    private String textMax;
+
+    private final HyperLogLog distinct = new HyperLogLog();
+    private final TopKCounter topValues = new TopKCounter(TOP_K_CAPACITY);
+
+    public ColumnProfile(String name) {
+        this.name = name;
+    }
+
+    public void add(String value) {
+        count++;
+        if (isNull(value)) {
+            nullCount++;
+            return;
+        }
+
+        distinct.add(value);
+        topValues.add(value);
+
+        if (looksNumeric(value)) {
+            double number = parseNumber(value);
+            if (!Double.isNaN(number)) {
+                if (isInteger(value)) {
+                    integerCount++;
+                } else {
+                    decimalCount++;
+                }
+                addNumber(number);
+                return;
+            }
+        }
+
+        if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
+            booleanCount++;
+        } else {
+            textCount++;
+        }
+        if (textMin == null || value.compareTo(textMin) < 0) {
+            textMin = value;
+        }
+        if (textMax == null || value.compareTo(textMax) > 0) {
+            textMax = value;
+        }
+    }
+
+    // Chan et al. pairwise combination of the running moments
+    public void merge(ColumnProfile other) {
+        count += other.count;
+        nullCount += other.nullCount;
+        integerCount += other.integerCount;
+        decimalCount += other.decimalCount;
+        booleanCount += other.booleanCount;
+        textCount += other.textCount;
+
+        if (other.numericCount > 0) {
+            long combined = numericCount + other.numericCount;
+            double delta = other.mean - mean;
+            mean += delta * other.numericCount / combined;
+            m2 += other.m2 + delta * delta * numericCount * other.numericCount / combined;
+            numericCount = combined;
+            numericMin = Math.min(numericMin, other.numericMin);
+            numericMax = Math.max(numericMax, other.numericMax);
+        }
+
+        if (other.textMin != null && (textMin == null || other.textMin.compareTo(textMin) < 0)) {
+            textMin = other.textMin;
+        }
+        if (other.textMax != null && (textMax == null || other.textMax.compareTo(textMax) > 0)) {
+            textMax = other.textMax;
+        }
+
+        distinct.merge(other.distinct);
+        topValues.merge(other.topValues);
+    }
+
+    public String getInferredType() {
+        if (count == nullCount) {
+            return "EMPTY";
+        }
+        if (textCount > 0 || (booleanCount > 0 && numericCount > 0)) {
+            return "STRING";
+        }
+        if (booleanCount > 0) {
+            return "BOOLEAN";
+        }
+        return decimalCount > 0 ? "DECIMAL" : "INTEGER";
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("name", name);
+        map.put("type", getInferredType());
+        map.put("count", count);
+        map.put("nulls", nullCount);
+        map.put("distinct", distinct.estimate());
+
+        if (numericCount > 0) {
+            map.put("min", numericMin);
+            map.put("max", numericMax);
+            map.put("mean", mean);
+            map.put("stddev", numericCount > 1 ? Math.sqrt(m2 / (numericCount - 1)) : 0.0);
+        }
+        if (textMin != null && numericCount == 0) {
+            map.put("min", textMin);
+            map.put("max", textMax);
+        }
+
+        map.put("top", topValues.top(TOP_K));
+        return map;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getNullCount() {
+        return nullCount;
+    }
+
+    private void addNumber(double number) {
+        numericCount++;
+        double delta = number - mean;
+        mean += delta / numericCount;
+        m2 += delta * (number - mean);
+        if (number < numericMin) {
+            numericMin = number;
+        }
+        if (number > numericMax) {
+            numericMax = number;
+        }
+    }
+
+    private static boolean isNull(String value) {
+        return value == null || value.isEmpty() || value.equalsIgnoreCase("null") || value.equalsIgnoreCase("NA");
+    }
+
+    // Cheap character check so non-numeric text never pays for a NumberFormatException
+    private static boolean looksNumeric(String value) {
+        char first = value.charAt(0);
+        if (!(first >= '0' && first <= '9') && first != '-' && first != '+' && first != '.') {
+            return false;
+        }
+        for (int i = 1; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!(c >= '0' && c <= '9') && c != '.' && c != 'e' && c != 'E' && c != '-' && c != '+') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isInteger(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '.' || c == 'e' || c == 'E') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double parseNumber(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.watcher.demowatcher.analytics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Column profiles for one table (a CSV file or a worksheet)
+public class TableProfile {
+
+    private final List<ColumnProfile> columns = new ArrayList<>();
+    private long rowCount;
+
+    public TableProfile(List<String> headers) {
+        for (String header : headers) {
+            columns.add(new ColumnProfile(header));
+        }
+    }
+
+    public void addRow(Iterable<String> values) {
+        rowCount++;
+        int index = 0;
+        for (String value : values) {
+            column(index++).add(value);
+        }
+        // Short rows count as nulls in the missing columns
+        for (; index < columns.size(); index++) {
+            columns.get(index).add(null);
+        }
+    }
+
+    public void addValue(int columnIndex, String value) {
+        column(columnIndex).add(value);
+    }
+
+    public void incrementRowCount() {
+        rowCount++;
+    }
+
+    public void merge(TableProfile other) {
+        rowCount += other.rowCount;
+        for (int i = 0; i < other.columns.size(); i++) {
+            column(i).merge(other.columns.get(i));
+        }
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public List<ColumnProfile> getColumns() {
+        return columns;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("rows", rowCount);
+        map.put("columnCount", columns.size());
+        List<Map<String, Object>> columnMaps = new ArrayList<>(columns.size());
+        for (ColumnProfile column : columns) {
+            columnMaps.add(column.toMap());
+        }
+        map.put("columns", columnMaps);
+        return map;
+    }
+
+    // Rows wider than the header get generated column names
+    private ColumnProfile column(int index) {
+        while (columns.size() <= index) {
+            columns.add(new ColumnProfile("column_" + (columns.size() + 1)));
+        }
+        return columns.get(index);
+    }
+}
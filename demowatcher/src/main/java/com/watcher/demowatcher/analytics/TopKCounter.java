@@ -0,0 +1,94 @@
+package com.watcher.demowatcher.analytics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Space-Saving heavy hitters: tracks at most `capacity` values, and a new value
+// replaces the smallest counter (inheriting its count as error), so memory stays
+// fixed however many distinct values the column has. Only values seen at least
+// twice beyond that error are reported.
+public class TopKCounter {
+
+    private static final int MAX_VALUE_LENGTH = 64;
+
+    private final int capacity;
+    private final Map<String, long[]> counters;
+    private String minValue;
+
+    public TopKCounter(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    private static final int COUNT = 0;
+    private static final int ERROR = 1;
+
+    public void add(String value) {
+        add(value, 1, 0);
+    }
+
+    private void add(String value, long count, long error) {
+        if (value.length() > MAX_VALUE_LENGTH) {
+            value = value.substring(0, MAX_VALUE_LENGTH);
+        }
+
+        long[] counter = counters.get(value);
+        if (counter != null) {
+            counter[COUNT] += count;
+            counter[ERROR] += error;
+            if (value.equals(minValue)) {
+                minValue = null;
+            }
+            return;
+        }
+
+        if (counters.size() < capacity) {
+            counters.put(value, new long[] { count, error });
+            minValue = null;
+            return;
+        }
+
+        String evicted = minValue != null ? minValue : findMin();
+        long[] evictedCounter = counters.remove(evicted);
+        counters.put(value, new long[] { evictedCounter[COUNT] + count, evictedCounter[COUNT] + error });
+        minValue = null;
+    }
+
+    public void merge(TopKCounter other) {
+        for (Map.Entry<String, long[]> entry : other.counters.entrySet()) {
+            add(entry.getKey(), entry.getValue()[COUNT], entry.getValue()[ERROR]);
+        }
+    }
+
+    public Map<String, Long> top(int k) {
+        List<Map.Entry<String, long[]>> entries = new ArrayList<>();
+        for (Map.Entry<String, long[]> entry : counters.entrySet()) {
+            if (entry.getValue()[COUNT] - entry.getValue()[ERROR] >= 2) {
+                entries.add(entry);
+            }
+        }
+        entries.sort((a, b) -> Long.compare(b.getValue()[COUNT], a.getValue()[COUNT]));
+
+        Map<String, Long> top = new LinkedHashMap<>();
+        for (int i = 0; i < Math.min(k, entries.size()); i++) {
+            top.put(entries.get(i).getKey(), entries.get(i).getValue()[COUNT]);
+        }
+        return top;
+    }
+
+    private String findMin() {
+        String min = null;
+        long minCount = Long.MAX_VALUE;
+        for (Map.Entry<String, long[]> entry : counters.entrySet()) {
+            if (entry.getValue()[COUNT] < minCount) {
+                minCount = entry.getValue()[COUNT];
+                min = entry.getKey();
+            }
+        }
+        minValue = min;
+        return min;
+    }
+}
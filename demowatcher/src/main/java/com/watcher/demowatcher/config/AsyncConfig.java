@@ -1,10 +1,10 @@
 package com.watcher.demowatcher.config;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.scheduling.annotation.EnableAsync;
 
 @Configuration
-@EnableAsync
+@EnableConfigurationProperties({ ProcessingProperties.class, ClusterProperties.class })
 public class AsyncConfig {
 
 }
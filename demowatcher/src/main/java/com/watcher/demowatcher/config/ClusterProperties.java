@@ -0,0 +1,33 @@
+package com.watcher.demowatcher.config;
+
+import java.lang.management.ManagementFactory;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "app.cluster")
+public class ClusterProperties {
+
+    // Off by default, a single node dispatches what it registers without leasing
+    private boolean enabled = false;
+
+    // Written to the lease columns, must differ between nodes sharing a database
+    private String nodeId = ManagementFactory.getRuntimeMXBean().getName();
+
+    private int leaseSeconds = 60;
+    private int heartbeatSeconds = 15;
+
+    // Claims stop once this many documents are queued on the local pools
+    private int claimBatchSize = 32;
+    private long pollMs = 500;
+
+    // Statistics are read from the database this often, local counters cannot see other nodes' work
+    private int statsRefreshSeconds = 5;
+
+    // Fences the final write, null when leasing is off
+    public String leaseOwner() {
+        return enabled ? nodeId : null;
+    }
+}
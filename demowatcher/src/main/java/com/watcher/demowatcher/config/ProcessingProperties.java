@@ -0,0 +1,38 @@
+package com.watcher.demowatcher.config;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.watcher.demowatcher.constants.ExecutionMode;
+import com.watcher.demowatcher.constants.FileType;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "app.processing")
+public class ProcessingProperties {
+
+    // VIRTUAL runs each document on its own virtual thread, limited to virtual-permits per type
+    private ExecutionMode mode = ExecutionMode.PLATFORM;
+
+    // Used for file types without their own pool
+    private PoolSettings defaults = new PoolSettings();
+
+    private Map<FileType, PoolSettings> pools = new EnumMap<>(FileType.class);
+
+    public PoolSettings poolFor(FileType fileType) {
+        return pools.getOrDefault(fileType, defaults);
+    }
+
+    @Data
+    public static class PoolSettings {
+        private int coreSize = 2;
+        private int maxSize = 2;
+        private int queueCapacity = 500;
+        private int keepAliveSeconds = 60;
+        // Concurrency in VIRTUAL mode, 0 falls back to max-size
+        private int virtualPermits = 0;
+    }
+}
@@ -0,0 +1,8 @@
+package com.watcher.demowatcher.constants;
+
+public enum ExecutionMode {
+	
+	PLATFORM,     // bounded thread pool per file type
+	VIRTUAL       // virtual thread per document, semaphore per file type
+
+}
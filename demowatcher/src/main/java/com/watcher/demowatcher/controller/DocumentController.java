@@ -1,16 +1,18 @@
 package com.watcher.demowatcher.controller;
 
+import java.io.IOException;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -18,10 +20,18 @@ import org.springframework.web.multipart.MultipartFile;
 
 import com.watcher.demowatcher.constants.FileType;
 import com.watcher.demowatcher.constants.ProcessingStatus;
+import com.watcher.demowatcher.dto.ChunkedUploadDTO;
+import com.watcher.demowatcher.dto.DocumentPageDTO;
 import com.watcher.demowatcher.dto.DocumentResponseDTO;
 import com.watcher.demowatcher.dto.UploadResponseDTO;
+import com.watcher.demowatcher.pipeline.FileEventPipeline;
+import com.watcher.demowatcher.service.ChunkedUploadService;
+import com.watcher.demowatcher.service.DocumentDispatcher;
 import com.watcher.demowatcher.service.DocumentService;
+import com.watcher.demowatcher.service.DocumentStatistics;
+import com.watcher.demowatcher.service.MetricsExporter;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 
 @RestController
@@ -32,15 +42,74 @@ public class DocumentController {
 	@Autowired
 	private DocumentService documentService;
 	
+	@Autowired
+	private FileEventPipeline fileEventPipeline;
+	
+	@Autowired
+	private DocumentDispatcher documentDispatcher;
+	
+	@Autowired
+	private ChunkedUploadService chunkedUploadService;
+	
+	@Autowired
+	private DocumentStatistics documentStatistics;
+	
+	@Autowired
+	private MetricsExporter metricsExporter;
+	
 	 @PostMapping("/upload")
 	    public ResponseEntity<UploadResponseDTO> uploadFile(@RequestParam("file") MultipartFile file) {
 	        UploadResponseDTO response = documentService.uploadFile(file);
 	        return new ResponseEntity<>(response, HttpStatus.CREATED);
 	    }
 	    
+	    // Raw body upload: curl -H "Content-Type: application/octet-stream" --data-binary @big.csv ".../upload/stream?filename=big.csv"
+	    @PostMapping(value = "/upload/stream", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+	    public ResponseEntity<UploadResponseDTO> uploadStream(@RequestParam("filename") String filename,
+	                                                          HttpServletRequest request) throws IOException {
+	        UploadResponseDTO response = documentService.uploadStream(filename, request.getInputStream());
+	        return new ResponseEntity<>(response, HttpStatus.CREATED);
+	    }
+	    
+	    // Resumable upload: initiate, PUT chunks at byte offsets (in any order), then complete
+	    @PostMapping("/uploads")
+	    public ResponseEntity<ChunkedUploadDTO> initiateUpload(@RequestParam("filename") String filename,
+	                                                           @RequestParam("size") long size) {
+	        return new ResponseEntity<>(chunkedUploadService.initiate(filename, size), HttpStatus.CREATED);
+	    }
+	    
+	    @PutMapping(value = "/uploads/{uploadId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+	    public ResponseEntity<ChunkedUploadDTO> uploadChunk(@PathVariable String uploadId,
+	                                                        @RequestParam("offset") long offset,
+	                                                        HttpServletRequest request) throws IOException {
+	        return ResponseEntity.ok(chunkedUploadService.writeChunk(uploadId, offset, request.getInputStream()));
+	    }
+	    
+	    @GetMapping("/uploads/{uploadId}")
+	    public ResponseEntity<ChunkedUploadDTO> getUploadStatus(@PathVariable String uploadId) {
+	        return ResponseEntity.ok(chunkedUploadService.getStatus(uploadId));
+	    }
+	    
+	    @PostMapping("/uploads/{uploadId}/complete")
+	    public ResponseEntity<UploadResponseDTO> completeUpload(@PathVariable String uploadId) {
+	        return new ResponseEntity<>(chunkedUploadService.complete(uploadId), HttpStatus.CREATED);
+	    }
+	    
+	    @DeleteMapping("/uploads/{uploadId}")
+	    public ResponseEntity<Map<String, String>> abortUpload(@PathVariable String uploadId) {
+	        chunkedUploadService.abort(uploadId);
+	        Map<String, String> response = new HashMap<>();
+	        response.put("message", "Upload aborted");
+	        return ResponseEntity.ok(response);
+	    }
+	    
+	    // Newest first, a page at a time: pass nextCursor back as ?cursor= until it is null.
+	    // metadata and errorMessage are only read with ?details=true
 	    @GetMapping
-	    public ResponseEntity<List<DocumentResponseDTO>> getAllDocuments() {
-	        List<DocumentResponseDTO> documents = documentService.getAllDocuments();
+	    public ResponseEntity<DocumentPageDTO> getAllDocuments(@RequestParam(required = false) String cursor,
+	                                                           @RequestParam(required = false) Integer limit,
+	                                                           @RequestParam(defaultValue = "false") boolean details) {
+	        DocumentPageDTO documents = documentService.getDocuments(cursor, limit, details);
 	        return ResponseEntity.ok(documents);
 	    }
 	    
@@ -51,14 +120,20 @@ public class DocumentController {
 	    }
 	    
 	    @GetMapping("/status/{status}")
-	    public ResponseEntity<List<DocumentResponseDTO>> getDocumentsByStatus(@PathVariable ProcessingStatus status) {
-	        List<DocumentResponseDTO> documents = documentService.getDocumentsByStatus(status);
+	    public ResponseEntity<DocumentPageDTO> getDocumentsByStatus(@PathVariable ProcessingStatus status,
+	                                                                @RequestParam(required = false) String cursor,
+	                                                                @RequestParam(required = false) Integer limit,
+	                                                                @RequestParam(defaultValue = "false") boolean details) {
+	        DocumentPageDTO documents = documentService.getDocumentsByStatus(status, cursor, limit, details);
 	        return ResponseEntity.ok(documents);
 	    }
 	    
 	    @GetMapping("/type/{fileType}")
-	    public ResponseEntity<List<DocumentResponseDTO>> getDocumentsByType(@PathVariable FileType fileType) {
-	        List<DocumentResponseDTO> documents = documentService.getDocumentsByType(fileType);
+	    public ResponseEntity<DocumentPageDTO> getDocumentsByType(@PathVariable FileType fileType,
+	                                                              @RequestParam(required = false) String cursor,
+	                                                              @RequestParam(required = false) Integer limit,
+	                                                              @RequestParam(defaultValue = "false") boolean details) {
+	        DocumentPageDTO documents = documentService.getDocumentsByType(fileType, cursor, limit, details);
 	        return ResponseEntity.ok(documents);
 	    }
 	    
@@ -70,11 +145,33 @@ public class DocumentController {
 	        return ResponseEntity.ok(response);
 	    }
 	    
+	    // Served from in-memory counters, safe to poll
+	    @GetMapping("/stats")
+	    public ResponseEntity<Map<String, Object>> getStatistics() {
+	        return ResponseEntity.ok(documentStatistics.getStatistics());
+	    }
+	    
+	    @GetMapping("/pipeline")
+	    public ResponseEntity<Map<String, Map<String, Object>>> getPipelineMetrics() {
+	        return ResponseEntity.ok(fileEventPipeline.getStageMetrics());
+	    }
+	    
+	    @GetMapping("/executors")
+	    public ResponseEntity<Map<String, Map<String, Object>>> getExecutorMetrics() {
+	        return ResponseEntity.ok(documentDispatcher.getExecutorMetrics());
+	    }
+	    
+	    // Prometheus scrape target: stage timers, queue gauges and document counts
+	    @GetMapping(value = "/metrics", produces = "text/plain; version=0.0.4; charset=utf-8")
+	    public ResponseEntity<String> getMetrics() {
+	        return ResponseEntity.ok(metricsExporter.scrape());
+	    }
+	    
+	    // DOWN (503) when the watcher stopped or the pipeline queues fall too far behind
 	    @GetMapping("/health")
-	    public ResponseEntity<Map<String, String>> healthCheck() {
-	        Map<String, String> response = new HashMap<>();
-	        response.put("status", "UP");
-	        response.put("message", "Document Processing System is running");
-	        return ResponseEntity.ok(response);
+	    public ResponseEntity<Map<String, Object>> healthCheck() {
+	        Map<String, Object> response = metricsExporter.health();
+	        HttpStatus status = "UP".equals(response.get("status")) ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+	        return new ResponseEntity<>(response, status);
 	    }
 }
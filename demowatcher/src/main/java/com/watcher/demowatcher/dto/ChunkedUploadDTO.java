@@ -0,0 +1,20 @@
+package com.watcher.demowatcher.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChunkedUploadDTO {
+
+	private String uploadId;
+    private String fileName;
+    private Long size;
+    private Long received;
+    // [start, end) byte ranges still to be sent
+    private List<long[]> missingRanges;
+}
@@ -0,0 +1,17 @@
+package com.watcher.demowatcher.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentPageDTO {
+
+	private List<DocumentResponseDTO> documents;
+    // Pass back as ?cursor= for the next page, null on the last page
+    private String nextCursor;
+}
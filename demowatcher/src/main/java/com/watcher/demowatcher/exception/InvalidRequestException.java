@@ -0,0 +1,11 @@
+package com.watcher.demowatcher.exception;
+
+// Something the client sent that can never be processed, answered with 400
+public class InvalidRequestException extends FileProcessingException {
+
+	public InvalidRequestException(String message)
+	{
+		super(message);
+	}
+
+}
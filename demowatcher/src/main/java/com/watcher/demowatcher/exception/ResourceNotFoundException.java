@@ -0,0 +1,11 @@
+package com.watcher.demowatcher.exception;
+
+// The client asked for something that does not exist, answered with 404
+public class ResourceNotFoundException extends FileProcessingException {
+
+	public ResourceNotFoundException(String message)
+	{
+		super(message);
+	}
+
+}
@@ -12,21 +12,44 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "documents")
+@Table(name = "documents", indexes = {
+    @Index(name = "idx_documents_content_hash", columnList = "contentHash"),
+    @Index(name = "idx_documents_file_path", columnList = "filePath"),
+    // Keyset listing, overall and filtered by status or type
+    @Index(name = "idx_documents_uploaded", columnList = "uploadedAt, id"),
+    @Index(name = "idx_documents_status_uploaded", columnList = "processingStatus, uploadedAt, id"),
+    @Index(name = "idx_documents_type_uploaded", columnList = "fileType, uploadedAt, id"),
+    // Claimable work when several nodes share the database
+    @Index(name = "idx_documents_status_lease", columnList = "processingStatus, leaseExpiresAt")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Document {
+	
+	public static final String ID_GENERATOR_TABLE = "document_id_generator";
+	public static final int ID_ALLOCATION_SIZE = 50;
 
+	// Pooled table generator instead of IDENTITY so Hibernate can batch inserts
 	@Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "document_id")
+    @TableGenerator(
+        name = "document_id",
+        table = ID_GENERATOR_TABLE,
+        pkColumnName = "name",
+        valueColumnName = "next_id",
+        pkColumnValue = "documents",
+        allocationSize = ID_ALLOCATION_SIZE
+    )
     private Long id;
     
     @Column(nullable = false)
@@ -60,6 +83,16 @@ public class Document {
     @Column(columnDefinition = "TEXT")
     private String metadata;
     
+    // Hex SHA-256 of the file content, used to spot duplicates
+    @Column(length = 64)
+    private String contentHash;
+    
+    // Node holding the document while app.cluster.enabled, the expiry is compared with database time
+    @Column(length = 100)
+    private String leaseOwner;
+    
+    private LocalDateTime leaseExpiresAt;
+    
     
     @PrePersist
     protected void onCreate() {
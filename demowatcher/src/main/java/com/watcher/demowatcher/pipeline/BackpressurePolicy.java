@@ -0,0 +1,8 @@
+package com.watcher.demowatcher.pipeline;
+
+public enum BackpressurePolicy {
+
+    BLOCK,      // producer waits for space
+    SPILL,      // overflow is appended to a spill file and replayed later
+    SHED        // overflow is dropped and the directory is rescanned instead
+}
@@ -0,0 +1,128 @@
+package com.watcher.demowatcher.pipeline;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Bounded pool for one file type. When both the threads and the queue are
+// full the submitting thread waits for queue space, so nothing is dropped and
+// the backlog never grows past the queue capacity.
+@Slf4j
+public class BulkheadExecutor extends ThreadPoolExecutor implements ProcessingBulkhead {
+
+    private final String name;
+    private final AtomicInteger blockedSubmitters = new AtomicInteger();
+
+    private final LongAdder waitCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Long::max, 0);
+
+    public BulkheadExecutor(String name, int coreSize, int maxSize, int queueCapacity, int keepAliveSeconds) {
+        super(coreSize, Math.max(coreSize, maxSize), keepAliveSeconds, TimeUnit.SECONDS,
+              new ArrayBlockingQueue<>(queueCapacity));
+        this.name = name;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        setThreadFactory(runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setName(name + "-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        setRejectedExecutionHandler((runnable, executor) -> waitForRoom(runnable));
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        super.execute(command instanceof TimedTask ? command : new TimedTask(command));
+    }
+
+    @Override
+    protected void beforeExecute(Thread thread, Runnable runnable) {
+        super.beforeExecute(thread, runnable);
+        if (runnable instanceof TimedTask task) {
+            long waited = System.nanoTime() - task.enqueuedNanos;
+            waitCount.increment();
+            totalWaitNanos.add(waited);
+            maxWaitNanos.accumulate(waited);
+        }
+    }
+
+    // Only reached with every thread busy, so a worker is always there to take from the queue
+    private void waitForRoom(Runnable runnable) {
+        if (isShutdown()) {
+            log.warn("{} executor is shut down, discarding task", name);
+            return;
+        }
+        blockedSubmitters.incrementAndGet();
+        try {
+            getQueue().put(runnable);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException(name + " executor: interrupted while waiting for queue space", e);
+        } finally {
+            blockedSubmitters.decrementAndGet();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return getQueue().size();
+    }
+
+    public int getBlockedSubmitters() {
+        return blockedSubmitters.get();
+    }
+
+    public double getAverageWaitMs() {
+        long count = waitCount.sum();
+        return count == 0 ? 0 : totalWaitNanos.sum() / (count * 1_000_000.0);
+    }
+
+    public double getMaxWaitMs() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("mode", "platform");
+        snapshot.put("activeThreads", getActiveCount());
+        snapshot.put("poolSize", getPoolSize());
+        snapshot.put("maxPoolSize", getMaximumPoolSize());
+        snapshot.put("queueDepth", getQueueDepth());
+        snapshot.put("blockedSubmitters", getBlockedSubmitters());
+        snapshot.put("completedTasks", getCompletedTaskCount());
+        snapshot.put("avgWaitMs", getAverageWaitMs());
+        snapshot.put("maxWaitMs", getMaxWaitMs());
+        return snapshot;
+    }
+
+    private static final class TimedTask implements Runnable {
+
+        private final Runnable delegate;
+        private final long enqueuedNanos = System.nanoTime();
+
+        private TimedTask(Runnable delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void run() {
+            delegate.run();
+        }
+    }
+}
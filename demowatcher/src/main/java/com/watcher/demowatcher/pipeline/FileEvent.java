@@ -0,0 +1,11 @@
+package com.watcher.demowatcher.pipeline;
+
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+
+public record FileEvent(WatchEvent.Kind<?> kind, Path path, long createdNanos) {
+
+    public static FileEvent of(WatchEvent.Kind<?> kind, Path path) {
+        return new FileEvent(kind, path, System.nanoTime());
+    }
+}
@@ -0,0 +1,394 @@
+package com.watcher.demowatcher.pipeline;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.watcher.demowatcher.model.Document;
+import com.watcher.demowatcher.service.DirectoryReconciler;
+import com.watcher.demowatcher.service.DocumentClaimer;
+import com.watcher.demowatcher.service.DocumentDispatcher;
+import com.watcher.demowatcher.service.DocumentIngestService;
+import com.watcher.demowatcher.service.DocumentStatistics;
+import com.watcher.demowatcher.service.ProcessingMetrics;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+// Staged intake: watcher -> intake ring buffer -> coalesce and handle events
+// -> (settle) -> persist ring buffer -> batched insert -> dispatch.
+// Each stage runs on its own thread so a slow database round trip never
+// stalls event consumption.
+@Service
+@Slf4j
+public class FileEventPipeline {
+
+    private static final int DRAIN_BATCH = 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    @Autowired
+    private DocumentIngestService documentIngestService;
+
+    @Autowired
+    private DocumentDispatcher documentDispatcher;
+
+    @Autowired
+    private DocumentClaimer documentClaimer;
+
+    @Autowired
+    private DirectoryReconciler directoryReconciler;
+
+    @Autowired
+    private DocumentStatistics documentStatistics;
+
+    @Autowired
+    private ProcessingMetrics processingMetrics;
+
+    @Value("${app.pipeline.intake.capacity:16384}")
+    private int intakeCapacity;
+
+    @Value("${app.pipeline.intake.backpressure:SPILL}")
+    private BackpressurePolicy backpressurePolicy;
+
+    @Value("${app.pipeline.spill.dir:./upload-folders/spill}")
+    private String spillDir;
+
+    @Value("${app.pipeline.persist.capacity:8192}")
+    private int persistCapacity;
+
+    @Value("${app.pipeline.persist.batch-size:100}")
+    private int persistBatchSize;
+
+    @Value("${app.pipeline.persist.max-wait-ms:100}")
+    private long persistMaxWaitMs;
+
+    private RingBuffer<FileEvent> intakeQueue;
+    private RingBuffer<FileEvent> persistQueue;
+    private SpillFile spillFile;
+    private volatile boolean spilling = false;
+
+    // Paths queued for persistence, so the same file is never inserted twice
+    private final Set<Path> inFlight = ConcurrentHashMap.newKeySet();
+
+    private StageMetrics intakeMetrics;
+    private StageMetrics persistMetrics;
+    private StageMetrics dispatchMetrics;
+
+    private BiConsumer<WatchEvent.Kind<?>, Path> eventHandler;
+    private Thread eventThread;
+    private Thread persistThread;
+    private volatile boolean eventThreadWaiting = false;
+    private volatile boolean persistThreadWaiting = false;
+    private volatile boolean running = false;
+
+    @PostConstruct
+    public void init() throws IOException {
+        intakeQueue = new RingBuffer<>(intakeCapacity);
+        persistQueue = new RingBuffer<>(persistCapacity);
+
+        intakeMetrics = new StageMetrics("intake", intakeQueue::size);
+        persistMetrics = new StageMetrics("persist", persistQueue::size);
+        dispatchMetrics = new StageMetrics("dispatch", documentDispatcher::getQueuedCount);
+
+        if (backpressurePolicy == BackpressurePolicy.SPILL) {
+            spillFile = new SpillFile(Paths.get(spillDir, "intake.spill"));
+            // Replay anything left over from a previous run
+            spilling = !spillFile.isEmpty();
+        }
+    }
+
+    // Watch events are handed to eventHandler on the pipeline's event thread
+    public synchronized void start(BiConsumer<WatchEvent.Kind<?>, Path> eventHandler) {
+        if (running) {
+            return;
+        }
+        this.eventHandler = eventHandler;
+        running = true;
+
+        eventThread = new Thread(this::eventLoop);
+        eventThread.setName("FileEventThread");
+        eventThread.setDaemon(true);
+        eventThread.start();
+
+        persistThread = new Thread(this::persistLoop);
+        persistThread.setName("DocumentPersistThread");
+        persistThread.setDaemon(true);
+        persistThread.start();
+
+        log.info("File event pipeline started (intake capacity: {}, backpressure: {}, persist batch: {})",
+                 intakeQueue.capacity(), backpressurePolicy, persistBatchSize);
+    }
+
+    // Stage 1: called by the watcher thread, never blocks unless the policy is BLOCK
+    public void publish(WatchEvent.Kind<?> kind, Path path) {
+        FileEvent event = FileEvent.of(kind, path);
+        intakeMetrics.recordReceived();
+
+        if (!spilling && intakeQueue.offer(event)) {
+            wake(eventThread, eventThreadWaiting);
+            return;
+        }
+
+        switch (backpressurePolicy) {
+            case SPILL -> spill(event);
+            case SHED -> shed(event);
+            default -> {
+                block(intakeQueue, event);
+                wake(eventThread, eventThreadWaiting);
+            }
+        }
+    }
+
+    // Events found by a directory rescan. Shedding them would lose the file for good, since the
+    // snapshot already knows it, so they wait for space instead; the rescan thread can afford to
+    public void publishRescanned(WatchEvent.Kind<?> kind, Path path) {
+        if (backpressurePolicy != BackpressurePolicy.SHED) {
+            publish(kind, path);
+            return;
+        }
+        intakeMetrics.recordReceived();
+        block(intakeQueue, FileEvent.of(kind, path));
+        wake(eventThread, eventThreadWaiting);
+    }
+
+    // Stage 3: called by the settle tracker once a file has stopped changing
+    public void submitSettled(Path path) {
+        if (!inFlight.add(path)) {
+            persistMetrics.recordCoalesced();
+            return;
+        }
+        persistMetrics.recordReceived();
+
+        // Internal stage, always pushes back on the settle thread when full
+        block(persistQueue, FileEvent.of(StandardWatchEventKinds.ENTRY_CREATE, path));
+        wake(persistThread, persistThreadWaiting);
+    }
+
+    public Map<String, Map<String, Object>> getStageMetrics() {
+        Map<String, Map<String, Object>> stages = new LinkedHashMap<>();
+        for (StageMetrics metrics : getStages()) {
+            stages.put(metrics.getName(), metrics.snapshot());
+        }
+        return stages;
+    }
+
+    public List<StageMetrics> getStages() {
+        return List.of(intakeMetrics, persistMetrics, dispatchMetrics);
+    }
+
+    private void spill(FileEvent event) {
+        try {
+            synchronized (spillFile) {
+                spillFile.append(event);
+                spilling = true;
+            }
+            intakeMetrics.recordSpilled();
+        } catch (IOException e) {
+            log.error("Failed to spill event for {}, waiting for queue space: {}", event.path(), e.getMessage());
+            block(intakeQueue, event);
+            wake(eventThread, eventThreadWaiting);
+        }
+    }
+
+    private void shed(FileEvent event) {
+        intakeMetrics.recordDropped();
+        // The rescan re-emits whatever was dropped once there is room again
+        Path dir = event.path().getParent();
+        if (dir != null) {
+            directoryReconciler.requestRescan(dir);
+        }
+    }
+
+    private void block(RingBuffer<FileEvent> queue, FileEvent event) {
+        while (!queue.offer(event)) {
+            if (!running) {
+                return;
+            }
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+    }
+
+    private void wake(Thread consumer, boolean waiting) {
+        if (waiting && consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    // Stage 2: coalesce duplicate events and run the handlers
+    private void eventLoop() {
+        List<FileEvent> batch = new ArrayList<>(DRAIN_BATCH);
+
+        while (running) {
+            try {
+                batch.clear();
+                intakeQueue.drainTo(batch, DRAIN_BATCH);
+
+                // The ring buffer only holds events older than the spill file, so drain it first
+                if (batch.isEmpty() && spilling) {
+                    synchronized (spillFile) {
+                        spillFile.drain(DRAIN_BATCH, batch::add);
+                        spilling = !spillFile.isEmpty();
+                    }
+                }
+
+                if (batch.isEmpty()) {
+                    eventThreadWaiting = true;
+                    if (intakeQueue.isEmpty() && !spilling) {
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    }
+                    eventThreadWaiting = false;
+                    continue;
+                }
+
+                for (FileEvent event : coalesce(batch)) {
+                    try {
+                        eventHandler.accept(event.kind(), event.path());
+                    } catch (Exception e) {
+                        log.error("Error handling {} for {}: {}", event.kind().name(), event.path(), e.getMessage(), e);
+                    }
+                    intakeMetrics.recordCompleted(System.nanoTime() - event.createdNanos());
+                }
+
+            } catch (Exception e) {
+                log.error("Error in file event thread: {}", e.getMessage(), e);
+            }
+        }
+
+        log.info("File event thread stopped");
+    }
+
+    // One event per path: repeated modifies collapse, a modify after a create is
+    // covered by the create, and a delete replaces whatever came before it
+    private Collection<FileEvent> coalesce(List<FileEvent> batch) {
+        Map<Path, FileEvent> byPath = new LinkedHashMap<>();
+        for (FileEvent event : batch) {
+            FileEvent previous = byPath.get(event.path());
+            if (previous == null) {
+                byPath.put(event.path(), event);
+                continue;
+            }
+
+            intakeMetrics.recordCoalesced();
+            if (event.kind() == StandardWatchEventKinds.ENTRY_MODIFY) {
+                continue;
+            }
+            byPath.put(event.path(), new FileEvent(event.kind(), event.path(), previous.createdNanos()));
+        }
+        return byPath.values();
+    }
+
+    // Stage 3 and 4: batch settled files into one insert, then hand them to processing
+    private void persistLoop() {
+        List<FileEvent> batch = new ArrayList<>(persistBatchSize);
+
+        while (running) {
+            try {
+                batch.clear();
+                if (persistQueue.drainTo(batch, persistBatchSize) == 0) {
+                    persistThreadWaiting = true;
+                    if (persistQueue.isEmpty()) {
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    }
+                    persistThreadWaiting = false;
+                    continue;
+                }
+
+                // Give the batch a short window to fill up
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(persistMaxWaitMs);
+                while (batch.size() < persistBatchSize && System.nanoTime() < deadline) {
+                    if (persistQueue.drainTo(batch, persistBatchSize - batch.size()) == 0) {
+                        LockSupport.parkNanos(Math.min(FULL_PARK_NANOS * 10, deadline - System.nanoTime()));
+                    }
+                }
+
+                persistBatch(batch);
+
+            } catch (Exception e) {
+                log.error("Error in document persist thread: {}", e.getMessage(), e);
+            }
+        }
+
+        log.info("Document persist thread stopped");
+    }
+
+    private void persistBatch(List<FileEvent> batch) {
+        List<Path> paths = new ArrayList<>(batch.size());
+        for (FileEvent event : batch) {
+            paths.add(event.path());
+        }
+
+        List<Document> savedDocuments;
+        long insertStart = System.nanoTime();
+        try {
+            savedDocuments = documentIngestService.registerFiles(paths);
+            processingMetrics.recordStage("persist", ProcessingMetrics.ALL_TYPES, ProcessingMetrics.SUCCESS,
+                                          System.nanoTime() - insertStart);
+        } catch (Exception e) {
+            log.error("Failed to create document records for {} files: {}", paths.size(), e.getMessage(), e);
+            processingMetrics.recordStage("persist", ProcessingMetrics.ALL_TYPES, ProcessingMetrics.FAILURE,
+                                          System.nanoTime() - insertStart);
+            savedDocuments = List.of();
+        } finally {
+            paths.forEach(inFlight::remove);
+        }
+
+        long now = System.nanoTime();
+        for (FileEvent event : batch) {
+            persistMetrics.recordCompleted(now - event.createdNanos());
+        }
+
+        for (Document document : savedDocuments) {
+            documentStatistics.recordCreated(document.getFileType());
+            dispatchMetrics.recordReceived();
+            long start = System.nanoTime();
+            try {
+                // Process the file on its type's pool, or on whichever node claims it
+                documentClaimer.submit(document);
+            } catch (Exception e) {
+                log.error("Failed to dispatch document ID {}: {}", document.getId(), e.getMessage(), e);
+                dispatchMetrics.recordDropped();
+            }
+            dispatchMetrics.recordCompleted(System.nanoTime() - start);
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (eventThread != null) {
+            LockSupport.unpark(eventThread);
+        }
+        if (persistThread != null) {
+            LockSupport.unpark(persistThread);
+        }
+        if (spillFile != null) {
+            try {
+                spillFile.close();
+            } catch (IOException e) {
+                log.error("Error closing spill file: {}", e.getMessage(), e);
+            }
+        }
+    }
+}
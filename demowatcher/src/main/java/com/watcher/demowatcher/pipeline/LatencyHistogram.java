@@ -0,0 +1,60 @@
+package com.watcher.demowatcher.pipeline;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Fixed-bucket duration histogram, cheap enough to record on every document.
+// Bucket bounds cover a millisecond CSV up to a multi-minute PDF.
+public class LatencyHistogram {
+
+    public static final double[] BUCKET_SECONDS = {
+        0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 300
+    };
+
+    private static final long[] BUCKET_NANOS = new long[BUCKET_SECONDS.length];
+
+    static {
+        for (int i = 0; i < BUCKET_SECONDS.length; i++) {
+            BUCKET_NANOS[i] = (long) (BUCKET_SECONDS[i] * 1_000_000_000L);
+        }
+    }
+
+    // Last slot counts everything above the largest bound
+    private final LongAdder[] buckets = new LongAdder[BUCKET_SECONDS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        int bucket = 0;
+        while (bucket < BUCKET_NANOS.length && nanos > BUCKET_NANOS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        count.increment();
+        totalNanos.add(nanos);
+    }
+
+    // Cumulative counts per bound as Prometheus expects, the last entry is +Inf
+    public long[] getCumulativeCounts() {
+        long[] cumulative = new long[buckets.length];
+        long running = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            running += buckets[i].sum();
+            cumulative[i] = running;
+        }
+        return cumulative;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getTotalSeconds() {
+        return totalNanos.sum() / 1_000_000_000.0;
+    }
+}
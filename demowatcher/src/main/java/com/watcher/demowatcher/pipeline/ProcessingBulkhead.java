@@ -0,0 +1,17 @@
+package com.watcher.demowatcher.pipeline;
+
+import java.util.Map;
+
+// Concurrency limit for one file type's processing
+public interface ProcessingBulkhead {
+
+    void execute(Runnable task);
+
+    String getName();
+
+    int getQueueDepth();
+
+    Map<String, Object> snapshot();
+
+    void shutdown();
+}
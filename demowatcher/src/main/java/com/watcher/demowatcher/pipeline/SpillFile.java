@@ -0,0 +1,106 @@
+package com.watcher.demowatcher.pipeline;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.util.function.Consumer;
+
+// Append-only overflow for the intake queue, one "KIND<TAB>createdMillis<TAB>path" line per event.
+// Events survive a restart and are replayed when the file is opened again. The creation time is
+// kept as wall-clock time so replayed events still report their real intake latency.
+final class SpillFile implements Closeable {
+
+    private static final int READ_CHUNK = 64 * 1024;
+
+    private final FileChannel channel;
+    private long readPosition;
+
+    SpillFile(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    synchronized boolean isEmpty() throws IOException {
+        return readPosition >= channel.size();
+    }
+
+    synchronized void append(FileEvent event) throws IOException {
+        long createdMillis = System.currentTimeMillis() - (System.nanoTime() - event.createdNanos()) / 1_000_000;
+        byte[] line = (event.kind().name() + '\t' + createdMillis + '\t' + event.path() + '\n')
+                .getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        long position = channel.size();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    // Replays up to maxEvents spilled events in order, truncating the file once it is fully drained
+    synchronized int drain(int maxEvents, Consumer<FileEvent> sink) throws IOException {
+        int drained = 0;
+        ByteBuffer buffer = ByteBuffer.allocate(READ_CHUNK);
+
+        while (drained < maxEvents && readPosition < channel.size()) {
+            buffer.clear();
+            int read = channel.read(buffer, readPosition);
+            if (read <= 0) {
+                break;
+            }
+
+            byte[] bytes = buffer.array();
+            int lineStart = 0;
+            for (int i = 0; i < read && drained < maxEvents; i++) {
+                if (bytes[i] != '\n') {
+                    continue;
+                }
+                sink.accept(parse(new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8)));
+                drained++;
+                lineStart = i + 1;
+            }
+
+            if (lineStart == 0) {
+                // A single line longer than the chunk should never happen, skip it rather than spin
+                readPosition += read;
+            } else {
+                readPosition += lineStart;
+            }
+        }
+
+        if (readPosition >= channel.size()) {
+            channel.truncate(0);
+            readPosition = 0;
+        }
+        return drained;
+    }
+
+    // KIND<TAB>created epoch millis<TAB>path, the path may itself contain tabs
+    private static FileEvent parse(String line) {
+        int kindEnd = line.indexOf('\t');
+        int timeEnd = line.indexOf('\t', kindEnd + 1);
+        long ageMillis = Math.max(0, System.currentTimeMillis() - Long.parseLong(line.substring(kindEnd + 1, timeEnd)));
+        return new FileEvent(kindOf(line.substring(0, kindEnd)), Paths.get(line.substring(timeEnd + 1)),
+                             System.nanoTime() - ageMillis * 1_000_000);
+    }
+
+    private static WatchEvent.Kind<?> kindOf(String name) {
+        return switch (name) {
+            case "ENTRY_CREATE" -> StandardWatchEventKinds.ENTRY_CREATE;
+            case "ENTRY_DELETE" -> StandardWatchEventKinds.ENTRY_DELETE;
+            default -> StandardWatchEventKinds.ENTRY_MODIFY;
+        };
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,108 @@
+package com.watcher.demowatcher.pipeline;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+public class StageMetrics {
+
+    private final String name;
+    private final IntSupplier queueDepth;
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Long::max, 0);
+    private volatile long lastLatencyNanos;
+
+    public StageMetrics(String name, IntSupplier queueDepth) {
+        this.name = name;
+        this.queueDepth = queueDepth;
+    }
+
+    public void recordReceived() {
+        received.increment();
+    }
+
+    // Latency is measured from when the item entered the stage's queue
+    public void recordCompleted(long latencyNanos) {
+        completed.increment();
+        totalLatencyNanos.add(latencyNanos);
+        maxLatencyNanos.accumulate(latencyNanos);
+        lastLatencyNanos = latencyNanos;
+    }
+
+    // Duplicate events merged into one already queued
+    public void recordCoalesced() {
+        coalesced.increment();
+    }
+
+    public void recordDropped() {
+        dropped.increment();
+    }
+
+    public void recordSpilled() {
+        spilled.increment();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    public long getReceived() {
+        return received.sum();
+    }
+
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getSpilled() {
+        return spilled.sum();
+    }
+
+    public double getAverageLatencyMs() {
+        long count = completed.sum();
+        return count == 0 ? 0 : totalLatencyNanos.sum() / (count * 1_000_000.0);
+    }
+
+    public double getMaxLatencyMs() {
+        return maxLatencyNanos.get() / 1_000_000.0;
+    }
+
+    // How far behind the stage is: the latency of the latest item, or zero once the queue drained
+    public double getLagMs() {
+        return getQueueDepth() == 0 ? 0 : lastLatencyNanos / 1_000_000.0;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("queueDepth", getQueueDepth());
+        snapshot.put("received", getReceived());
+        snapshot.put("completed", getCompleted());
+        snapshot.put("coalesced", getCoalesced());
+        snapshot.put("dropped", getDropped());
+        snapshot.put("spilled", getSpilled());
+        snapshot.put("avgLatencyMs", getAverageLatencyMs());
+        snapshot.put("maxLatencyMs", getMaxLatencyMs());
+        snapshot.put("lagMs", getLagMs());
+        return snapshot;
+    }
+}
@@ -0,0 +1,108 @@
+package com.watcher.demowatcher.pipeline;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Starts a virtual thread per task and lets the semaphore decide how many run
+// at once. Waiting tasks are parked virtual threads, which cost a few hundred
+// bytes each instead of a queue slot plus a platform thread.
+//
+// On JDK 23 a virtual thread inside a synchronized block pins its carrier,
+// and PDFBox and POI synchronize internally. The permits also bound how many
+// carriers can be pinned at once; run with -Djdk.tracePinnedThreads=short or
+// record jdk.VirtualThreadPinned in JFR to see where it happens.
+@Slf4j
+public class VirtualThreadBulkhead implements ProcessingBulkhead {
+
+    private final String name;
+    private final int permits;
+    private final Semaphore semaphore;
+    private final ThreadFactory threadFactory;
+    private volatile boolean shutdown = false;
+
+    private final AtomicLong waiting = new AtomicLong();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder waitCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Long::max, 0);
+
+    public VirtualThreadBulkhead(String name, int permits) {
+        this.name = name;
+        this.permits = permits;
+        this.semaphore = new Semaphore(permits, true);
+        this.threadFactory = Thread.ofVirtual().name(name + "-vthread-", 1).factory();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (shutdown) {
+            log.warn("{} bulkhead is shut down, discarding task", name);
+            return;
+        }
+
+        long enqueuedNanos = System.nanoTime();
+        waiting.incrementAndGet();
+        threadFactory.newThread(() -> {
+            try {
+                semaphore.acquire();
+            } catch (InterruptedException e) {
+                waiting.decrementAndGet();
+                Thread.currentThread().interrupt();
+                return;
+            }
+            waiting.decrementAndGet();
+
+            long waited = System.nanoTime() - enqueuedNanos;
+            waitCount.increment();
+            totalWaitNanos.add(waited);
+            maxWaitNanos.accumulate(waited);
+
+            try {
+                task.run();
+            } finally {
+                semaphore.release();
+                completed.increment();
+            }
+        }).start();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return (int) waiting.get();
+    }
+
+    public int getActiveCount() {
+        return permits - semaphore.availablePermits();
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        long count = waitCount.sum();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("mode", "virtual");
+        snapshot.put("activeThreads", getActiveCount());
+        snapshot.put("maxPoolSize", permits);
+        snapshot.put("queueDepth", getQueueDepth());
+        snapshot.put("completedTasks", completed.sum());
+        snapshot.put("avgWaitMs", count == 0 ? 0 : totalWaitNanos.sum() / (count * 1_000_000.0));
+        snapshot.put("maxWaitMs", maxWaitNanos.get() / 1_000_000.0);
+        return snapshot;
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+}
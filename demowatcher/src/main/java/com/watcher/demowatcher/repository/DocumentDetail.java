@@ -0,0 +1,9 @@
+package com.watcher.demowatcher.repository;
+
+// Listing row including the TEXT columns, only selected when a caller asks for them
+public interface DocumentDetail extends DocumentSummary {
+
+    String getErrorMessage();
+
+    String getMetadata();
+}
@@ -1,11 +1,16 @@
 package com.watcher.demowatcher.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.watcher.demowatcher.constants.FileType;
 import com.watcher.demowatcher.constants.ProcessingStatus;
@@ -14,6 +19,15 @@ import com.watcher.demowatcher.model.Document;
 @Repository
 public interface DocumentRepository extends JpaRepository<Document, Long>{
 
+    // Keyset listing, newest first on (uploadedAt, id). Each page starts strictly after the
+    // last row of the previous one, so the cost does not grow with how deep the client pages.
+    String SUMMARY_COLUMNS = "SELECT d.id AS id, d.fileName AS fileName, d.originalName AS originalName, "
+                           + "d.fileType AS fileType, d.fileSize AS fileSize, d.filePath AS filePath, "
+                           + "d.processingStatus AS processingStatus, d.uploadedAt AS uploadedAt, "
+                           + "d.processedAt AS processedAt";
+    String DETAIL_COLUMNS = SUMMARY_COLUMNS + ", d.errorMessage AS errorMessage, d.metadata AS metadata";
+    String AFTER_CURSOR = "(d.uploadedAt < :uploadedAt OR (d.uploadedAt = :uploadedAt AND d.id < :id))";
+    String NEWEST_FIRST = " ORDER BY d.uploadedAt DESC, d.id DESC";
 
     // Find by status
     List<Document> findByProcessingStatus(ProcessingStatus status);
@@ -42,4 +56,128 @@ public interface DocumentRepository extends JpaRepository<Document, Long>{
     
     @Query("SELECT d.processingStatus, COUNT(d) FROM Document d GROUP BY d.processingStatus")
     List<Object[]> countByStatusGrouped();
+    
+    // Seeds and reconciles DocumentStatistics, the stats endpoint itself never runs it
+    @Query("SELECT d.processingStatus, d.fileType, COUNT(d) FROM Document d GROUP BY d.processingStatus, d.fileType")
+    List<Object[]> countByStatusAndFileTypeGrouped();
+    
+    @Query(SUMMARY_COLUMNS + " FROM Document d WHERE " + AFTER_CURSOR + NEWEST_FIRST)
+    List<DocumentSummary> findSummariesBefore(@Param("uploadedAt") LocalDateTime uploadedAt,
+                                              @Param("id") Long id,
+                                              Pageable pageable);
+    
+    @Query(DETAIL_COLUMNS + " FROM Document d WHERE " + AFTER_CURSOR + NEWEST_FIRST)
+    List<DocumentDetail> findDetailsBefore(@Param("uploadedAt") LocalDateTime uploadedAt,
+                                           @Param("id") Long id,
+                                           Pageable pageable);
+    
+    @Query(SUMMARY_COLUMNS + " FROM Document d WHERE d.processingStatus = :status AND " + AFTER_CURSOR + NEWEST_FIRST)
+    List<DocumentSummary> findSummariesByStatusBefore(@Param("status") ProcessingStatus status,
+                                                      @Param("uploadedAt") LocalDateTime uploadedAt,
+                                                      @Param("id") Long id,
+                                                      Pageable pageable);
+    
+    @Query(DETAIL_COLUMNS + " FROM Document d WHERE d.processingStatus = :status AND " + AFTER_CURSOR + NEWEST_FIRST)
+    List<DocumentDetail> findDetailsByStatusBefore(@Param("status") ProcessingStatus status,
+                                                   @Param("uploadedAt") LocalDateTime uploadedAt,
+                                                   @Param("id") Long id,
+                                                   Pageable pageable);
+    
+    @Query(SUMMARY_COLUMNS + " FROM Document d WHERE d.fileType = :fileType AND " + AFTER_CURSOR + NEWEST_FIRST)
+    List<DocumentSummary> findSummariesByTypeBefore(@Param("fileType") FileType fileType,
+                                                    @Param("uploadedAt") LocalDateTime uploadedAt,
+                                                    @Param("id") Long id,
+                                                    Pageable pageable);
+    
+    @Query(DETAIL_COLUMNS + " FROM Document d WHERE d.fileType = :fileType AND " + AFTER_CURSOR + NEWEST_FIRST)
+    List<DocumentDetail> findDetailsByTypeBefore(@Param("fileType") FileType fileType,
+                                                 @Param("uploadedAt") LocalDateTime uploadedAt,
+                                                 @Param("id") Long id,
+                                                 Pageable pageable);
+    
+    // Which of these paths already have a record, served by the file path index
+    @Query("SELECT d.filePath FROM Document d WHERE d.filePath IN :filePaths")
+    List<String> findExistingFilePaths(@Param("filePaths") Collection<String> filePaths);
+    
+    // Unfinished documents from before a point in time, paged by id for the startup reconciler
+    @Query("SELECT d FROM Document d WHERE d.processingStatus IN :statuses AND d.uploadedAt < :uploadedBefore "
+         + "AND d.id > :afterId ORDER BY d.id")
+    List<Document> findUnfinishedAfter(@Param("statuses") Collection<ProcessingStatus> statuses,
+                                       @Param("uploadedBefore") LocalDateTime uploadedBefore,
+                                       @Param("afterId") Long afterId,
+                                       Pageable pageable);
+    
+    // Work leasing between nodes, lease times always come from the database clock
+    
+    // Unleased or expired work, rows another node is claiming right now are skipped rather than waited on
+    @Query(value = "SELECT id FROM documents WHERE processing_status IN ('PENDING', 'PROCESSING') "
+                 + "AND (lease_expires_at IS NULL OR lease_expires_at < NOW()) "
+                 + "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockClaimableIds(@Param("limit") int limit);
+    
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE documents SET lease_owner = :owner, "
+                 + "lease_expires_at = NOW() + INTERVAL :leaseSeconds SECOND WHERE id IN :ids", nativeQuery = true)
+    int leaseAll(@Param("ids") Collection<Long> ids,
+                 @Param("owner") String owner,
+                 @Param("leaseSeconds") int leaseSeconds);
+    
+    // Still ours unless another node claimed it, claims and this update serialize on the row lock
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE documents SET lease_expires_at = NOW() + INTERVAL :leaseSeconds SECOND "
+                 + "WHERE id = :id AND lease_owner = :owner", nativeQuery = true)
+    int extendLease(@Param("id") Long id,
+                    @Param("owner") String owner,
+                    @Param("leaseSeconds") int leaseSeconds);
+    
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE documents SET lease_owner = NULL, lease_expires_at = NULL "
+                 + "WHERE id = :id AND lease_owner = :owner", nativeQuery = true)
+    int releaseLease(@Param("id") Long id,
+                     @Param("owner") String owner);
+    
+    // Heartbeat, extends every unfinished lease the node holds in one statement
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE documents SET lease_expires_at = NOW() + INTERVAL :leaseSeconds SECOND "
+                 + "WHERE lease_owner = :owner AND processing_status IN ('PENDING', 'PROCESSING')", nativeQuery = true)
+    int renewLeases(@Param("owner") String owner,
+                    @Param("leaseSeconds") int leaseSeconds);
+    
+    // Metadata of completed documents with the same content, served by the content hash index
+    @Query("SELECT d.metadata FROM Document d WHERE d.contentHash = :contentHash AND d.fileType = :fileType "
+         + "AND d.processingStatus = com.watcher.demowatcher.constants.ProcessingStatus.COMPLETED ORDER BY d.id")
+    List<String> findCompletedMetadataByContentHash(@Param("contentHash") String contentHash,
+                                                    @Param("fileType") FileType fileType,
+                                                    Pageable pageable);
+    
+    // Targeted state transitions, these never load or rewrite the whole entity
+    
+    // Moves a batch of documents on, skipping any that already left the expected status
+    @Modifying
+    @Transactional
+    @Query("UPDATE Document d SET d.processingStatus = :status WHERE d.id IN :ids AND d.processingStatus = :expected")
+    int updateStatusForIds(@Param("ids") Collection<Long> ids,
+                           @Param("expected") ProcessingStatus expected,
+                           @Param("status") ProcessingStatus status);
+    
+    // Final status, metadata, new location and content hash in one write. With a lease owner
+    // the write only lands if that node still holds the lease, and releases it
+    @Modifying
+    @Transactional
+    @Query("UPDATE Document d SET d.processingStatus = :status, d.processedAt = :processedAt, "
+         + "d.metadata = :metadata, d.errorMessage = :errorMessage, d.filePath = :filePath, "
+         + "d.contentHash = :contentHash, d.leaseOwner = NULL, d.leaseExpiresAt = NULL "
+         + "WHERE d.id = :id AND (:leaseOwner IS NULL OR d.leaseOwner = :leaseOwner)")
+    int finishProcessing(@Param("id") Long id,
+                         @Param("status") ProcessingStatus status,
+                         @Param("processedAt") LocalDateTime processedAt,
+                         @Param("metadata") String metadata,
+                         @Param("errorMessage") String errorMessage,
+                         @Param("filePath") String filePath,
+                         @Param("contentHash") String contentHash,
+                         @Param("leaseOwner") String leaseOwner);
 }
@@ -0,0 +1,28 @@
+package com.watcher.demowatcher.repository;
+
+import java.time.LocalDateTime;
+
+import com.watcher.demowatcher.constants.FileType;
+import com.watcher.demowatcher.constants.ProcessingStatus;
+
+// Listing row without the TEXT columns, so a page never reads metadata or error text
+public interface DocumentSummary {
+
+    Long getId();
+
+    String getFileName();
+
+    String getOriginalName();
+
+    FileType getFileType();
+
+    Long getFileSize();
+
+    String getFilePath();
+
+    ProcessingStatus getProcessingStatus();
+
+    LocalDateTime getUploadedAt();
+
+    LocalDateTime getProcessedAt();
+}
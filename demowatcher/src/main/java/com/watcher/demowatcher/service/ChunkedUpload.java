@@ -0,0 +1,259 @@
+package com.watcher.demowatcher.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.watcher.demowatcher.exception.FileProcessingException;
+import com.watcher.demowatcher.exception.InvalidRequestException;
+
+// One resumable upload in the staging directory: the data file written at chunk
+// offsets, a session file with the declared size and name, and an append-only log
+// of the byte ranges fully written so far. The log is replayed after a restart.
+final class ChunkedUpload implements Closeable {
+
+    private final String id;
+    private final String originalFilename;
+    private final long size;
+    private final Path dataFile;
+    private final Path sessionFile;
+    private final Path rangesFile;
+    private final FileChannel data;
+    private final FileChannel rangesLog;
+
+    // Received ranges, start -> end (exclusive), merged so they never touch
+    private final TreeMap<Long, Long> received = new TreeMap<>();
+    private boolean completing;
+    private int activeWriters;
+
+    private ChunkedUpload(Path dir, String id, String originalFilename, long size, boolean create) throws IOException {
+        this.id = id;
+        this.originalFilename = originalFilename;
+        this.size = size;
+        this.dataFile = dir.resolve(id + ".data");
+        this.sessionFile = dir.resolve(id + ".session");
+        this.rangesFile = dir.resolve(id + ".ranges");
+        // Reopening never creates, a late request must not bring back files a complete already moved or deleted
+        Set<StandardOpenOption> dataOptions = EnumSet.of(StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Set<StandardOpenOption> rangesOptions = EnumSet.of(StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (create) {
+            dataOptions.add(StandardOpenOption.CREATE_NEW);
+            rangesOptions.add(StandardOpenOption.CREATE_NEW);
+        }
+        this.data = FileChannel.open(dataFile, dataOptions);
+        try {
+            this.rangesLog = FileChannel.open(rangesFile, rangesOptions);
+        } catch (IOException e) {
+            data.close();
+            throw e;
+        }
+    }
+
+    static ChunkedUpload create(Path dir, String id, String originalFilename, long size) throws IOException {
+        Files.writeString(dir.resolve(id + ".session"), size + "\t" + originalFilename, StandardCharsets.UTF_8);
+        return new ChunkedUpload(dir, id, originalFilename, size, true);
+    }
+
+    // Null if there is no such upload, or if it was completed or removed while this was looking
+    static ChunkedUpload load(Path dir, String id) throws IOException {
+        Path sessionFile = dir.resolve(id + ".session");
+        String session;
+        try {
+            session = Files.readString(sessionFile, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        int tab = session.indexOf('\t');
+        ChunkedUpload upload;
+        try {
+            upload = new ChunkedUpload(dir, id, session.substring(tab + 1),
+                                       Long.parseLong(session.substring(0, tab)), false);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        // A torn last line, without its newline, is a chunk that never finished, it is simply sent again
+        String log = Files.readString(upload.rangesFile, StandardCharsets.UTF_8);
+        for (String line : log.substring(0, log.lastIndexOf('\n') + 1).split("\n")) {
+            int separator = line.indexOf('\t');
+            if (separator > 0) {
+                long start = Long.parseLong(line.substring(0, separator));
+                upload.merge(start, start + Long.parseLong(line.substring(separator + 1)));
+            }
+        }
+        return upload;
+    }
+
+    // Positional writes, so chunks can arrive in any order and in parallel
+    long write(long offset, InputStream body) throws IOException {
+        if (offset < 0 || offset >= size) {
+            throw new InvalidRequestException("Chunk offset " + offset + " is outside the file size " + size);
+        }
+        synchronized (this) {
+            if (completing) {
+                throw new InvalidRequestException("Upload " + id + " is already complete");
+            }
+            activeWriters++;
+        }
+        try {
+            return writeAt(offset, body);
+        } finally {
+            synchronized (this) {
+                activeWriters--;
+                notifyAll();
+            }
+        }
+    }
+
+    private long writeAt(long offset, InputStream body) throws IOException {
+        byte[] buffer = new byte[UploadStorage.BUFFER_SIZE];
+        long position = offset;
+        int read;
+        while ((read = body.read(buffer)) > 0) {
+            if (position + read > size) {
+                throw new InvalidRequestException("Chunk at offset " + offset + " runs past the file size " + size);
+            }
+            ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+            while (chunk.hasRemaining()) {
+                position += data.write(chunk, position);
+            }
+        }
+
+        // Only a chunk that arrived whole counts as received, and only once its bytes are on disk,
+        // so a range replayed after a crash never points at data that was lost with the page cache
+        if (position > offset) {
+            data.force(false);
+            record(offset, position);
+        }
+        return position - offset;
+    }
+
+    synchronized long getReceivedBytes() {
+        long total = 0;
+        for (Map.Entry<Long, Long> range : received.entrySet()) {
+            total += range.getValue() - range.getKey();
+        }
+        return total;
+    }
+
+    // Gaps still to be sent, as [start, end) pairs
+    synchronized List<long[]> getMissingRanges() {
+        List<long[]> missing = new ArrayList<>();
+        long next = 0;
+        for (Map.Entry<Long, Long> range : received.entrySet()) {
+            if (range.getKey() > next) {
+                missing.add(new long[] { next, range.getKey() });
+            }
+            next = range.getValue();
+        }
+        if (next < size) {
+            missing.add(new long[] { next, size });
+        }
+        return missing;
+    }
+
+    // Stops further chunks and waits for the ones already being written, true if every byte has arrived.
+    // Once true the upload stays closed to chunks, a second complete or an abort is refused.
+    synchronized boolean beginComplete() {
+        stopWriters();
+        Map.Entry<Long, Long> first = received.firstEntry();
+        completing = first != null && first.getKey() == 0 && first.getValue() == size;
+        return completing;
+    }
+
+    // Stops further chunks for good before the files are removed
+    synchronized void beginAbort() {
+        stopWriters();
+    }
+
+    private void stopWriters() {
+        if (completing) {
+            throw new InvalidRequestException("Upload " + id + " is already being completed");
+        }
+        completing = true;
+        try {
+            while (activeWriters > 0) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            completing = false;
+            throw new FileProcessingException("Interrupted while completing upload " + id);
+        }
+    }
+
+    String getId() {
+        return id;
+    }
+
+    String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    Path getDataFile() {
+        return dataFile;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!data.isOpen()) {
+            return;
+        }
+        data.force(false);
+        data.close();
+        rangesLog.close();
+    }
+
+    // Removes the bookkeeping files, and the data file unless it was moved away
+    void delete() throws IOException {
+        deleteFiles(sessionFile.getParent(), id);
+    }
+
+    // The session file goes first, without it the upload can no longer be reopened
+    static void deleteFiles(Path dir, String id) throws IOException {
+        Files.deleteIfExists(dir.resolve(id + ".session"));
+        Files.deleteIfExists(dir.resolve(id + ".data"));
+        Files.deleteIfExists(dir.resolve(id + ".ranges"));
+    }
+
+    private synchronized void record(long start, long end) throws IOException {
+        merge(start, end);
+        byte[] line = (start + "\t" + (end - start) + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            rangesLog.write(buffer);
+        }
+    }
+
+    private void merge(long start, long end) {
+        Map.Entry<Long, Long> before = received.floorEntry(start);
+        if (before != null && before.getValue() >= start) {
+            start = before.getKey();
+            end = Math.max(end, before.getValue());
+        }
+        Map.Entry<Long, Long> after = received.ceilingEntry(start);
+        while (after != null && after.getKey() <= end) {
+            end = Math.max(end, after.getValue());
+            received.remove(after.getKey());
+            after = received.ceilingEntry(start);
+        }
+        received.put(start, end);
+    }
+}
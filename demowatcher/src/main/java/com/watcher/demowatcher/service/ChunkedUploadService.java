@@ -0,0 +1,235 @@
+package com.watcher.demowatcher.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.watcher.demowatcher.dto.ChunkedUploadDTO;
+import com.watcher.demowatcher.dto.UploadResponseDTO;
+import com.watcher.demowatcher.exception.FileProcessingException;
+import com.watcher.demowatcher.exception.InvalidRequestException;
+import com.watcher.demowatcher.exception.ResourceNotFoundException;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+// Resumable uploads: initiate with the file size, send chunks at any offset in
+// any order, then complete. Chunks are staged outside the watched directories.
+// On completion the document is created first, then the finished file is moved
+// (not copied) into the upload directory, so the watcher always finds its record.
+@Service
+@Slf4j
+public class ChunkedUploadService {
+
+    @Autowired
+    private DocumentService documentService;
+
+    @Value("${app.upload.dir}")
+    private String uploadDir;
+
+    @Value("${app.upload.staging-dir:./upload-folders/staging}")
+    private String stagingDir;
+
+    @Value("${app.upload.chunked.expiry-hours:24}")
+    private long expiryHours;
+
+    private Path stagingPath;
+    private final Map<String, ChunkedUpload> uploads = new ConcurrentHashMap<>();
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    public void init() throws IOException {
+        stagingPath = Paths.get(stagingDir);
+        Files.createDirectories(stagingPath);
+
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setName("UploadSweeperThread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::removeExpired, 0, 1, TimeUnit.HOURS);
+    }
+
+    public ChunkedUploadDTO initiate(String filename, long size) {
+        String originalFilename = DocumentService.clientFileName(filename);
+        if (size <= 0) {
+            throw new InvalidRequestException("File is empty");
+        }
+
+        String uploadId = UUID.randomUUID().toString();
+        try {
+            ChunkedUpload upload = ChunkedUpload.create(stagingPath, uploadId, originalFilename, size);
+            uploads.put(uploadId, upload);
+            log.info("Started chunked upload {} for {} ({} bytes)", uploadId, originalFilename, size);
+            return toDTO(upload);
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to start upload: " + e.getMessage(), e);
+        }
+    }
+
+    public ChunkedUploadDTO writeChunk(String uploadId, long offset, InputStream body) {
+        ChunkedUpload upload = find(uploadId);
+        try {
+            long written = upload.write(offset, body);
+            log.debug("Upload {}: {} bytes at offset {}", uploadId, written, offset);
+            return toDTO(upload);
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to write chunk: " + e.getMessage(), e);
+        }
+    }
+
+    public ChunkedUploadDTO getStatus(String uploadId) {
+        return toDTO(find(uploadId));
+    }
+
+    public UploadResponseDTO complete(String uploadId) {
+        ChunkedUpload upload = find(uploadId);
+        if (!upload.beginComplete()) {
+            throw new InvalidRequestException("Upload " + uploadId + " is missing "
+                    + (upload.getSize() - upload.getReceivedBytes()) + " bytes");
+        }
+
+        String uniqueFilename = uploadId + "_" + upload.getOriginalFilename();
+        Path filePath = Paths.get(uploadDir, uniqueFilename);
+
+        // Chunks arrived out of order, so the content hash is computed on the processing pool.
+        // The upload stays in the map, refusing chunks, until its files are gone from staging,
+        // so a request arriving meanwhile never reopens them as a fresh upload.
+        try {
+            UploadResponseDTO response = documentService.registerUpload(uniqueFilename, upload.getOriginalFilename(),
+                                                                        filePath, upload.getSize(), null, () -> {
+                upload.close();
+                Files.createDirectories(filePath.getParent());
+                moveIntoPlace(upload.getDataFile(), filePath);
+                upload.delete();
+            });
+            uploads.remove(uploadId, upload);
+            return response;
+        } catch (RuntimeException e) {
+            // The staged files are still there, a retried complete reopens them
+            uploads.remove(uploadId, upload);
+            try {
+                upload.close();
+            } catch (IOException closeError) {
+                log.warn("Error closing upload {}: {}", uploadId, closeError.getMessage());
+            }
+            throw e;
+        }
+    }
+
+    public void abort(String uploadId) {
+        ChunkedUpload upload = find(uploadId);
+        upload.beginAbort();
+        uploads.remove(uploadId, upload);
+        try {
+            upload.close();
+            upload.delete();
+            log.info("Aborted chunked upload {}", uploadId);
+        } catch (IOException e) {
+            throw new FileProcessingException("Failed to abort upload: " + e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+        for (ChunkedUpload upload : uploads.values()) {
+            try {
+                upload.close();
+            } catch (IOException e) {
+                log.warn("Error closing upload {}: {}", upload.getId(), e.getMessage());
+            }
+        }
+    }
+
+    // Uploads survive a restart, they are reopened from the staging directory on first use
+    private ChunkedUpload find(String uploadId) {
+        try {
+            UUID.fromString(uploadId);
+        } catch (IllegalArgumentException e) {
+            throw new ResourceNotFoundException("Upload not found: " + uploadId);
+        }
+
+        ChunkedUpload upload = uploads.computeIfAbsent(uploadId, id -> {
+            try {
+                return ChunkedUpload.load(stagingPath, id);
+            } catch (IOException e) {
+                throw new FileProcessingException("Failed to reopen upload: " + e.getMessage(), e);
+            }
+        });
+        if (upload == null) {
+            throw new ResourceNotFoundException("Upload not found: " + uploadId);
+        }
+        return upload;
+    }
+
+    // Same file system is a rename, anything else falls back to a copying move
+    private void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            log.warn("Staging and upload directories are on different file systems, copying {}", source);
+            Files.move(source, target);
+        }
+    }
+
+    private void removeExpired() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(expiryHours);
+        try (DirectoryStream<Path> sessions = Files.newDirectoryStream(stagingPath, "*.session")) {
+            for (Path session : sessions) {
+                String name = session.getFileName().toString();
+                String uploadId = name.substring(0, name.length() - ".session".length());
+                Path dataFile = stagingPath.resolve(uploadId + ".data");
+                Path lastActivity = Files.exists(dataFile) ? dataFile : session;
+                if (Files.getLastModifiedTime(lastActivity).toMillis() >= cutoff) {
+                    continue;
+                }
+
+                ChunkedUpload upload = uploads.get(uploadId);
+                if (upload != null) {
+                    try {
+                        upload.beginAbort();
+                    } catch (InvalidRequestException e) {
+                        // Being completed right now
+                        continue;
+                    }
+                    uploads.remove(uploadId, upload);
+                    upload.close();
+                }
+                ChunkedUpload.deleteFiles(stagingPath, uploadId);
+                log.info("Removed expired chunked upload {}", uploadId);
+            }
+        } catch (Exception e) {
+            log.error("Error removing expired uploads: {}", e.getMessage(), e);
+        }
+    }
+
+    private ChunkedUploadDTO toDTO(ChunkedUpload upload) {
+        ChunkedUploadDTO dto = new ChunkedUploadDTO();
+        dto.setUploadId(upload.getId());
+        dto.setFileName(upload.getOriginalFilename());
+        dto.setSize(upload.getSize());
+        dto.setReceived(upload.getReceivedBytes());
+        dto.setMissingRanges(upload.getMissingRanges());
+        return dto;
+    }
+}
@@ -1,52 +1,201 @@
 package com.watcher.demowatcher.service;
 
-import java.io.FileReader;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.watcher.demowatcher.analytics.TableProfile;
 import com.watcher.demowatcher.model.Document;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import tools.jackson.databind.ObjectMapper;
 
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class CsvProcessorService {
-	
+
+	static final int READ_BUFFER_SIZE = 1 << 16;
+
+	static final CSVFormat CSV_FORMAT = CSVFormat.DEFAULT.builder()
+	        .setHeader()
+	        .setSkipHeaderRecord(true)
+	        .build();
+
+	// Ranges after the first start past the header
+	static final CSVFormat RANGE_FORMAT = CSVFormat.DEFAULT;
+
+	private final ObjectMapper objectMapper;
+
+	@Value("${app.csv.parallel.enabled:true}")
+	private boolean parallelEnabled;
+
+	@Value("${app.csv.parallel.threshold-mb:256}")
+	private long parallelThresholdMb;
+
+	@Value("${app.csv.parallel.chunk-mb:64}")
+	private long chunkMb;
+
+	@Value("${app.csv.parallel.threads:0}")
+	private int parallelThreads;
+
+	private ForkJoinPool parsePool;
+
+	@PostConstruct
+	public void init() {
+	    int threads = parallelThreads > 0 ? parallelThreads : Runtime.getRuntime().availableProcessors();
+	    parsePool = new ForkJoinPool(threads);
+	}
+
 	 public String processCsv(Document document) {
+	        Path path = Paths.get(document.getFilePath());
 	        try {
-	            Reader reader = new FileReader(Paths.get(document.getFilePath()).toFile());
-	            CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT.withFirstRecordAsHeader());
-	            
-	            int recordCount = 0;
-	            int columnCount = csvParser.getHeaderMap().size();
-	            
-	            log.info("CSV Headers: {}", csvParser.getHeaderNames());
-	            
-	            for (CSVRecord record : csvParser) {
-	                recordCount++;
-	                // Here you can process each record
-	                // For now, we just count them
-	                log.debug("Processing record {}: {}", recordCount, record.toMap());
+	            long size = Files.size(path);
+	            if (parallelEnabled && size >= parallelThresholdMb * 1024 * 1024) {
+	                return toMetadata(profileParallel(path, size));
 	            }
-	            
-	            csvParser.close();
-	            reader.close();
-	            
-	            String metadata = String.format("CSV processed successfully. Rows: %d, Columns: %d, Headers: %s", 
-	                                           recordCount, columnCount, csvParser.getHeaderNames());
-	            
-	            log.info("CSV processing complete: {} rows, {} columns", recordCount, columnCount);
-	            
-	            return metadata;
-	            
+	            return toMetadata(profileSequential(path));
+
 	        } catch (Exception e) {
 	            log.error("Error processing CSV: {}", e.getMessage(), e);
 	            throw new RuntimeException("CSV processing failed: " + e.getMessage(), e);
 	        }
 	    }
+
+	 TableProfile profileSequential(Path path) throws IOException {
+	        try (Reader reader = new BufferedReader(new InputStreamReader(
+	                     Files.newInputStream(path), StandardCharsets.UTF_8), READ_BUFFER_SIZE);
+	             CSVParser csvParser = new CSVParser(reader, CSV_FORMAT)) {
+
+	            log.info("CSV Headers: {}", csvParser.getHeaderNames());
+
+	            // Single pass, values are read by index so no per-record map is built
+	            TableProfile profile = new TableProfile(csvParser.getHeaderNames());
+	            for (CSVRecord record : csvParser) {
+	                profile.addRow(record);
+	            }
+
+	            log.info("CSV processing complete: {} rows, {} columns",
+	                     profile.getRowCount(), profile.getColumns().size());
+	            return profile;
+	        }
+	    }
+
+	 // Splits the file into record-aligned byte ranges, profiles each range on the
+	 // parse pool and merges the partial profiles in file order
+	 TableProfile profileParallel(Path path, long size) throws IOException, InterruptedException {
+	        long startNanos = System.nanoTime();
+	        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+	            long[] starts = CsvRangeSplitter.split(channel, size, chunkMb * 1024 * 1024, parsePool);
+
+	            // The first range carries the header, read it up front so every range knows the column names
+	            try (CSVParser firstParser = new CSVParser(rangeReader(channel, starts[0], starts[1]), CSV_FORMAT)) {
+	                List<String> headers = firstParser.getHeaderNames();
+	                log.info("CSV Headers: {}", headers);
+
+	                List<Callable<TableProfile>> tasks = new ArrayList<>(starts.length - 1);
+	                tasks.add(() -> profileRange(firstParser, headers));
+	                for (int i = 1; i < starts.length - 1; i++) {
+	                    long start = starts[i];
+	                    long end = starts[i + 1];
+	                    tasks.add(() -> {
+	                        try (CSVParser parser = new CSVParser(rangeReader(channel, start, end), RANGE_FORMAT)) {
+	                            return profileRange(parser, headers);
+	                        }
+	                    });
+	                }
+
+	                TableProfile profile = new TableProfile(headers);
+	                for (Future<TableProfile> result : parsePool.invokeAll(tasks)) {
+	                    TableProfile range = join(result);
+	                    if (range == null) {
+	                        log.warn("CSV ranges of {} do not line up with its {} columns, profiling it sequentially",
+	                                 path.getFileName(), headers.size());
+	                        return profileSequential(path);
+	                    }
+	                    profile.merge(range);
+	                }
+
+	                log.info("CSV processing complete: {} rows, {} columns, {} ranges in {} ms",
+	                         profile.getRowCount(), profile.getColumns().size(), tasks.size(),
+	                         (System.nanoTime() - startNanos) / 1_000_000);
+	                return profile;
+	            }
+	        }
+	    }
+
+	 // Null if a record does not have one value per header. The split assumes RFC 4180
+	 // quoting, a stray quote inside an unquoted field makes ranges start mid-record
+	 private static TableProfile profileRange(CSVParser parser, List<String> headers) {
+	        TableProfile profile = new TableProfile(headers);
+	        try {
+	            for (CSVRecord record : parser) {
+	                if (record.size() != headers.size()) {
+	                    return null;
+	                }
+	                profile.addRow(record);
+	            }
+	        } catch (UncheckedIOException e) {
+	            // A range that ends inside an open quote
+	            return null;
+	        }
+	        return profile;
+	    }
+
+	 private static Reader rangeReader(FileChannel channel, long start, long end) {
+	        InputStream in = new MappedRangeInputStream(channel, start, end);
+	        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), READ_BUFFER_SIZE);
+	    }
+
+	 private static TableProfile join(Future<TableProfile> result) throws IOException, InterruptedException {
+	        try {
+	            return result.get();
+	        } catch (ExecutionException e) {
+	            if (e.getCause() instanceof IOException ioException) {
+	                throw ioException;
+	            }
+	            throw new RuntimeException(e.getCause());
+	        }
+	    }
+
+	 String toMetadata(TableProfile profile) {
+	        Map<String, Object> metadata = new LinkedHashMap<>();
+	        metadata.put("summary", String.format("CSV processed successfully. Rows: %d, Columns: %d",
+	                                              profile.getRowCount(), profile.getColumns().size()));
+	        metadata.putAll(profile.toMap());
+	        return objectMapper.writeValueAsString(metadata);
+	    }
+
+	@PreDestroy
+	public void shutdown() {
+	    if (parsePool != null) {
+	        parsePool.shutdownNow();
+	    }
+	}
 }
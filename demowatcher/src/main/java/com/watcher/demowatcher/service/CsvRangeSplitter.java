@@ -0,0 +1,104 @@
+package com.watcher.demowatcher.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// Splits a CSV file into byte ranges that start on a record boundary.
+// A newline only ends a record when an even number of quotes precede it, so
+// each fixed-size chunk is scanned in parallel for its quote count and its
+// first newline under either parity. A sequential pass over the chunk results
+// then knows the real parity at every chunk start and picks the right newline.
+// Escaped quotes ("") count twice and leave the parity unchanged.
+final class CsvRangeSplitter {
+
+    private static final int SCAN_BUFFER_SIZE = 1 << 16;
+
+    private CsvRangeSplitter() {
+    }
+
+    // Returns the range starts followed by the file size, so range i is [starts[i], starts[i + 1])
+    static long[] split(FileChannel channel, long size, long chunkSize, ForkJoinPool pool)
+            throws IOException, InterruptedException {
+        int chunkCount = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+        if (chunkCount == 1) {
+            return new long[] { 0, size };
+        }
+
+        List<Callable<ChunkScan>> tasks = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            long start = i * chunkSize;
+            long end = Math.min(size, start + chunkSize);
+            tasks.add(() -> scan(channel, start, end));
+        }
+        List<Future<ChunkScan>> scans = pool.invokeAll(tasks);
+
+        List<Long> starts = new ArrayList<>(chunkCount + 1);
+        starts.add(0L);
+        int parity = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            if (i > 0) {
+                // No unquoted newline means a single record spans the whole chunk, fold it into the previous range
+                long newline = result(scans.get(i)).firstNewline[parity];
+                if (newline >= 0 && newline + 1 < size) {
+                    starts.add(newline + 1);
+                }
+            }
+            parity ^= (int) (result(scans.get(i)).quotes & 1);
+        }
+        starts.add(size);
+
+        long[] result = new long[starts.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = starts.get(i);
+        }
+        return result;
+    }
+
+    private static ChunkScan result(Future<ChunkScan> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IllegalStateException("CSV chunk scan failed", e.getCause());
+        }
+    }
+
+    private static ChunkScan scan(FileChannel channel, long start, long end) throws IOException {
+        ChunkScan scan = new ChunkScan();
+        byte[] buffer = new byte[SCAN_BUFFER_SIZE];
+        long position = start;
+        int parity = 0;
+
+        try (InputStream in = new MappedRangeInputStream(channel, start, end)) {
+            int read;
+            while ((read = in.read(buffer, 0, buffer.length)) > 0) {
+                for (int i = 0; i < read; i++) {
+                    byte b = buffer[i];
+                    if (b == '"') {
+                        scan.quotes++;
+                        parity ^= 1;
+                    } else if (b == '\n' && scan.firstNewline[parity] < 0) {
+                        scan.firstNewline[parity] = position + i;
+                    }
+                }
+                position += read;
+            }
+        }
+        return scan;
+    }
+
+    private static final class ChunkScan {
+        private long quotes;
+        // Indexed by the number of quotes seen since the chunk start, mod 2
+        private final long[] firstNewline = { -1, -1 };
+    }
+}
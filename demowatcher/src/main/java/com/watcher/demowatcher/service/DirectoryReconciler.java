@@ -0,0 +1,165 @@
+package com.watcher.demowatcher.service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+@Service
+@Slf4j
+public class DirectoryReconciler {
+
+    @Value("${app.watcher.rescan.threads:1}")
+    private int rescanThreads;
+
+    private final Map<Path, DirectorySnapshot> snapshots = new ConcurrentHashMap<>();
+    private final Set<Path> queuedRescans = ConcurrentHashMap.newKeySet();
+
+    private ExecutorService rescanExecutor;
+    private BiConsumer<WatchEvent.Kind<?>, Path> eventSink;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        rescanExecutor = Executors.newFixedThreadPool(Math.max(1, rescanThreads), runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setName("DirectoryRescanThread-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Synthetic create/modify/delete events found by a rescan are passed to eventSink
+    public void start(BiConsumer<WatchEvent.Kind<?>, Path> eventSink) {
+        this.eventSink = eventSink;
+    }
+
+    // Entries found while registering a directory, known but not new
+    public void recordExisting(Path path, BasicFileAttributes attrs) {
+        long size = attrs.isDirectory() ? DirectorySnapshot.DIRECTORY : attrs.size();
+        snapshotFor(path.getParent()).put(path.getFileName().toString(), size, attrs.lastModifiedTime().toMillis());
+    }
+
+    // Entries reported by the watcher; attributes are filled in by the next rescan
+    public void recordCreated(Path path, boolean directory) {
+        long size = directory ? DirectorySnapshot.DIRECTORY : DirectorySnapshot.UNKNOWN;
+        snapshotFor(path.getParent()).put(path.getFileName().toString(), size, DirectorySnapshot.UNKNOWN);
+    }
+
+    public void recordDeleted(Path path) {
+        DirectorySnapshot snapshot = snapshots.get(path.getParent());
+        if (snapshot != null) {
+            snapshot.remove(path.getFileName().toString());
+        }
+        snapshots.remove(path);
+    }
+
+    public void forgetDirectory(Path dir) {
+        snapshots.remove(dir);
+    }
+
+    // Repeated requests for a directory that is already queued are coalesced
+    public void requestRescan(Path dir) {
+        if (queuedRescans.add(dir)) {
+            rescanExecutor.execute(() -> {
+                queuedRescans.remove(dir);
+                rescan(dir);
+            });
+        }
+    }
+
+    public int getQueuedRescanCount() {
+        return queuedRescans.size();
+    }
+
+    private void rescan(Path dir) {
+        DirectorySnapshot snapshot = snapshotFor(dir);
+        int scanEpoch = snapshot.beginScan();
+        int created = 0;
+        int modified = 0;
+        int deleted = 0;
+        long start = System.nanoTime();
+
+        // Stream the listing entry by entry, never materializing it
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (Path entry : entries) {
+                BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+
+                long size = attrs.isDirectory() ? DirectorySnapshot.DIRECTORY : attrs.size();
+                DirectorySnapshot.Change change = snapshot.reconcile(
+                        entry.getFileName().toString(), size, attrs.lastModifiedTime().toMillis(), scanEpoch);
+
+                if (change == DirectorySnapshot.Change.CREATED) {
+                    created++;
+                    // Forget an entry whose event was not accepted, so the next rescan reports it again
+                    if (!emit(StandardWatchEventKinds.ENTRY_CREATE, entry)) {
+                        snapshot.remove(entry.getFileName().toString());
+                    }
+                } else if (change == DirectorySnapshot.Change.MODIFIED) {
+                    modified++;
+                    emit(StandardWatchEventKinds.ENTRY_MODIFY, entry);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            log.debug("Directory disappeared before rescan: {}", dir);
+            forgetDirectory(dir);
+            return;
+        } catch (IOException e) {
+            log.error("Error rescanning directory {}: {}", dir, e.getMessage(), e);
+            return;
+        }
+
+        for (String name : snapshot.sweep(scanEpoch)) {
+            deleted++;
+            emit(StandardWatchEventKinds.ENTRY_DELETE, dir.resolve(name));
+        }
+
+        log.info("Rescanned {} in {} ms: {} entries, {} created, {} modified, {} deleted",
+                 dir, (System.nanoTime() - start) / 1_000_000, snapshot.size(), created, modified, deleted);
+    }
+
+    private boolean emit(WatchEvent.Kind<?> kind, Path path) {
+        try {
+            eventSink.accept(kind, path);
+            return true;
+        } catch (Exception e) {
+            log.error("Error handling synthetic {} for {}: {}", kind.name(), path, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    private DirectorySnapshot snapshotFor(Path dir) {
+        return snapshots.computeIfAbsent(dir, key -> new DirectorySnapshot());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (rescanExecutor != null) {
+            rescanExecutor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.watcher.demowatcher.service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+@Service
+@Slf4j
+public class DirectoryRegistrar {
+
+    @Autowired
+    private DirectoryReconciler directoryReconciler;
+
+    @Value("${app.watcher.registration-parallelism:0}")
+    private int parallelism;
+
+    private ForkJoinPool registrationPool;
+    private final AtomicInteger registeredCount = new AtomicInteger();
+
+    @PostConstruct
+    public void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        registrationPool = new ForkJoinPool(threads);
+    }
+
+    // Walks every root in parallel and registers each directory, returns once the whole tree is registered.
+    // Files already there seed the overflow snapshot and are also passed to onExistingFile
+    public void registerTrees(WatchService watchService, List<Path> roots, Consumer<Path> onExistingFile) {
+        List<RegisterTask> tasks = new ArrayList<>();
+        for (Path root : roots) {
+            tasks.add(new RegisterTask(watchService, root, onExistingFile, true));
+        }
+        registrationPool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+    }
+
+    // Registers a directory created after startup, files already inside it are passed to onExistingFile
+    public void registerTreeAsync(WatchService watchService, Path dir, Consumer<Path> onExistingFile) {
+        registrationPool.execute(new RegisterTask(watchService, dir, onExistingFile, false));
+    }
+
+    public void unregistered() {
+        registeredCount.decrementAndGet();
+    }
+
+    public int getRegisteredCount() {
+        return registeredCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (registrationPool != null) {
+            registrationPool.shutdownNow();
+        }
+    }
+
+    private class RegisterTask extends RecursiveAction {
+
+        private final WatchService watchService;
+        private final Path dir;
+        private final Consumer<Path> onExistingFile;
+        private final boolean seedSnapshot;
+
+        private RegisterTask(WatchService watchService, Path dir, Consumer<Path> onExistingFile,
+                             boolean seedSnapshot) {
+            this.watchService = watchService;
+            this.dir = dir;
+            this.onExistingFile = onExistingFile;
+            this.seedSnapshot = seedSnapshot;
+        }
+
+        @Override
+        protected void compute() {
+            // Register before listing so nothing created in between is missed
+            try {
+                dir.register(
+                    watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE
+                );
+                registeredCount.incrementAndGet();
+            } catch (IOException e) {
+                // On Linux this is usually fs.inotify.max_user_watches being too low
+                log.error("Failed to register directory {}: {}", dir, e.getMessage());
+                return;
+            }
+
+            List<RegisterTask> subdirectories = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attrs;
+                    try {
+                        attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (NoSuchFileException e) {
+                        continue;
+                    }
+
+                    // Seed the overflow snapshot with what is already there
+                    if (attrs.isDirectory()) {
+                        directoryReconciler.recordExisting(entry, attrs);
+                        subdirectories.add(new RegisterTask(watchService, entry, onExistingFile, seedSnapshot));
+                        continue;
+                    }
+                    if (seedSnapshot) {
+                        directoryReconciler.recordExisting(entry, attrs);
+                    }
+                    if (onExistingFile != null) {
+                        onExistingFile.accept(entry);
+                    }
+                }
+            } catch (IOException e) {
+                log.error("Failed to list directory {}: {}", dir, e.getMessage());
+            }
+
+            invokeAll(subdirectories);
+        }
+    }
+}
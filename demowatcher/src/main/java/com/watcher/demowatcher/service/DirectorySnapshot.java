@@ -0,0 +1,180 @@
+package com.watcher.demowatcher.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Compact record of the entries known in one directory (name, size, mtime).
+// Open addressing over parallel arrays keeps it to roughly the name strings
+// plus 20 bytes per entry, so directories with 100k+ files stay cheap.
+final class DirectorySnapshot {
+
+    static final long UNKNOWN = -1;
+    static final long DIRECTORY = -2;
+
+    enum Change {
+        CREATED,
+        MODIFIED,
+        UNCHANGED
+    }
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] names;
+    private long[] sizes;
+    private long[] modifiedTimes;
+    private int[] marks;
+    private int count;
+    private int epoch;
+
+    DirectorySnapshot() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    synchronized void put(String name, long size, long modifiedTime) {
+        int index = indexOf(name);
+        if (index < 0) {
+            index = insert(name);
+        }
+        sizes[index] = size;
+        modifiedTimes[index] = modifiedTime;
+        marks[index] = epoch;
+    }
+
+    synchronized void remove(String name) {
+        int index = indexOf(name);
+        if (index >= 0) {
+            removeAt(index);
+        }
+    }
+
+    synchronized int size() {
+        return count;
+    }
+
+    // Starts a scan; entries not seen with the returned epoch are swept afterwards
+    synchronized int beginScan() {
+        return ++epoch;
+    }
+
+    synchronized Change reconcile(String name, long size, long modifiedTime, int scanEpoch) {
+        int index = indexOf(name);
+        if (index < 0) {
+            index = insert(name);
+            sizes[index] = size;
+            modifiedTimes[index] = modifiedTime;
+            marks[index] = scanEpoch;
+            return Change.CREATED;
+        }
+
+        long knownSize = sizes[index];
+        long knownModifiedTime = modifiedTimes[index];
+        sizes[index] = size;
+        modifiedTimes[index] = modifiedTime;
+        marks[index] = scanEpoch;
+
+        // Entries recorded from events have no attributes yet, directories are not compared
+        if (knownSize == UNKNOWN || knownSize == DIRECTORY || size == DIRECTORY) {
+            return Change.UNCHANGED;
+        }
+        return knownSize != size || knownModifiedTime != modifiedTime ? Change.MODIFIED : Change.UNCHANGED;
+    }
+
+    // Removes and returns every entry that was not seen during the scan
+    synchronized List<String> sweep(int scanEpoch) {
+        List<String> missing = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] != null && marks[i] != scanEpoch) {
+                missing.add(names[i]);
+            }
+        }
+        for (String name : missing) {
+            remove(name);
+        }
+        return missing;
+    }
+
+    private int indexOf(String name) {
+        int mask = names.length - 1;
+        for (int i = slot(name, mask); names[i] != null; i = (i + 1) & mask) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int insert(String name) {
+        if ((count + 1) * 4 > names.length * 3) {
+            resize(names.length * 2);
+        }
+        int mask = names.length - 1;
+        int i = slot(name, mask);
+        while (names[i] != null) {
+            i = (i + 1) & mask;
+        }
+        names[i] = name;
+        count++;
+        return i;
+    }
+
+    // Backward-shift deletion keeps probe chains intact without tombstones
+    private void removeAt(int index) {
+        int mask = names.length - 1;
+        int hole = index;
+        int i = index;
+        while (true) {
+            i = (i + 1) & mask;
+            if (names[i] == null) {
+                break;
+            }
+            int home = slot(names[i], mask);
+            boolean movable = hole <= i
+                    ? home <= hole || home > i
+                    : home <= hole && home > i;
+            if (movable) {
+                names[hole] = names[i];
+                sizes[hole] = sizes[i];
+                modifiedTimes[hole] = modifiedTimes[i];
+                marks[hole] = marks[i];
+                hole = i;
+            }
+        }
+        names[hole] = null;
+        count--;
+    }
+
+    private void resize(int capacity) {
+        String[] oldNames = names;
+        long[] oldSizes = sizes;
+        long[] oldModifiedTimes = modifiedTimes;
+        int[] oldMarks = marks;
+
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int j = 0; j < oldNames.length; j++) {
+            if (oldNames[j] == null) {
+                continue;
+            }
+            int i = slot(oldNames[j], mask);
+            while (names[i] != null) {
+                i = (i + 1) & mask;
+            }
+            names[i] = oldNames[j];
+            sizes[i] = oldSizes[j];
+            modifiedTimes[i] = oldModifiedTimes[j];
+            marks[i] = oldMarks[j];
+        }
+    }
+
+    private void allocate(int capacity) {
+        names = new String[capacity];
+        sizes = new long[capacity];
+        modifiedTimes = new long[capacity];
+        marks = new int[capacity];
+    }
+
+    private static int slot(String name, int mask) {
+        int h = name.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,150 @@
+package com.watcher.demowatcher.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.watcher.demowatcher.config.ClusterProperties;
+import com.watcher.demowatcher.model.Document;
+import com.watcher.demowatcher.repository.DocumentRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+// Decides which node processes a new document. On its own a node dispatches what it
+// registers. With app.cluster.enabled every node claims PENDING work from the shared
+// table in batches sized to its free capacity, so the least busy node takes the next
+// documents and a crashed node's documents are picked up once their leases expire.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentClaimer {
+
+    private final ClusterProperties clusterProperties;
+    private final DocumentRepository documentRepository;
+    private final DocumentDispatcher documentDispatcher;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean wakeRequested = new AtomicBoolean();
+    private ScheduledExecutorService claimer;
+    private ScheduledExecutorService heartbeat;
+
+    @PostConstruct
+    public void init() {
+        if (!clusterProperties.isEnabled()) {
+            return;
+        }
+        claimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setName("DocumentClaimerThread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        claimer.scheduleWithFixedDelay(this::claim, clusterProperties.getPollMs(),
+                                       clusterProperties.getPollMs(), TimeUnit.MILLISECONDS);
+
+        // Own thread, a slow claim must never hold up the renewals
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setName("LeaseHeartbeatThread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleAtFixedRate(this::heartbeat, clusterProperties.getHeartbeatSeconds(),
+                                      clusterProperties.getHeartbeatSeconds(), TimeUnit.SECONDS);
+        log.info("Cluster leasing enabled for node {} (lease: {}s, heartbeat: {}s)", clusterProperties.getNodeId(),
+                 clusterProperties.getLeaseSeconds(), clusterProperties.getHeartbeatSeconds());
+    }
+
+    // Called once a document record is committed
+    public void submit(Document document) {
+        if (!clusterProperties.isEnabled()) {
+            documentDispatcher.dispatch(document);
+            return;
+        }
+        if (clusterProperties.getNodeId().equals(document.getLeaseOwner())) {
+            documentRepository.releaseLease(document.getId(), clusterProperties.getNodeId());
+        }
+        // Whichever node has room claims it, this one just looks sooner than its next poll
+        if (wakeRequested.compareAndSet(false, true)) {
+            claimer.execute(() -> {
+                wakeRequested.set(false);
+                claim();
+            });
+        }
+    }
+
+    // Uploads are held by the node that received them until their file is in place. The row does
+    // not exist yet, so this one expiry comes from the application clock rather than the database's
+    public void reserve(Document document) {
+        if (clusterProperties.isEnabled()) {
+            document.setLeaseOwner(clusterProperties.getNodeId());
+            document.setLeaseExpiresAt(LocalDateTime.now().plusSeconds(clusterProperties.getLeaseSeconds()));
+        }
+    }
+
+    public boolean isEnabled() {
+        return clusterProperties.isEnabled();
+    }
+
+    private void claim() {
+        try {
+            int capacity;
+            while ((capacity = clusterProperties.getClaimBatchSize() - documentDispatcher.getQueuedCount()) > 0) {
+                List<Document> claimed = claimBatch(capacity);
+                // The previous holder may have moved the file before losing the document
+                for (Document document : claimed) {
+                    documentDispatcher.dispatchResumed(document);
+                }
+                if (!claimed.isEmpty()) {
+                    log.debug("Node {} claimed {} documents", clusterProperties.getNodeId(), claimed.size());
+                }
+                if (claimed.size() < capacity) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error claiming documents: {}", e.getMessage(), e);
+        }
+    }
+
+    // The row locks from SKIP LOCKED are held until the lease is written, then released on commit
+    private List<Document> claimBatch(int limit) {
+        return transactionTemplate.execute(status -> {
+            List<Long> ids = documentRepository.lockClaimableIds(limit);
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            documentRepository.leaseAll(ids, clusterProperties.getNodeId(), clusterProperties.getLeaseSeconds());
+            return documentRepository.findAllById(ids);
+        });
+    }
+
+    private void heartbeat() {
+        try {
+            int renewed = documentRepository.renewLeases(clusterProperties.getNodeId(),
+                                                         clusterProperties.getLeaseSeconds());
+            log.debug("Node {} renewed {} leases", clusterProperties.getNodeId(), renewed);
+        } catch (Exception e) {
+            log.error("Error renewing document leases: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (claimer != null) {
+            claimer.shutdownNow();
+        }
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+        }
+    }
+}
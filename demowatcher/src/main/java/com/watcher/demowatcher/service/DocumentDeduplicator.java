@@ -0,0 +1,109 @@
+package com.watcher.demowatcher.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.watcher.demowatcher.constants.FileType;
+import com.watcher.demowatcher.repository.DocumentRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+// Finds the metadata of an already completed document with the same content,
+// so a file dropped or uploaded again is not processed again. Recent results
+// are kept in a small LRU in front of the content hash index.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentDeduplicator {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final DocumentRepository documentRepository;
+
+    @Value("${app.dedup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.dedup.cache-size:1024}")
+    private int cacheSize;
+
+    private final Map<String, String> recentMetadata = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    // Metadata of a completed document with this content and type, or null
+    public String findCompletedMetadata(String contentHash, FileType fileType) {
+        if (!enabled || contentHash == null) {
+            return null;
+        }
+
+        String key = cacheKey(contentHash, fileType);
+        synchronized (recentMetadata) {
+            String cached = recentMetadata.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        List<String> metadata = documentRepository.findCompletedMetadataByContentHash(
+                contentHash, fileType, PageRequest.of(0, 1));
+        if (metadata.isEmpty() || metadata.get(0) == null) {
+            return null;
+        }
+        remember(contentHash, fileType, metadata.get(0));
+        return metadata.get(0);
+    }
+
+    public void remember(String contentHash, FileType fileType, String metadata) {
+        if (!enabled || contentHash == null || metadata == null) {
+            return;
+        }
+        synchronized (recentMetadata) {
+            recentMetadata.put(cacheKey(contentHash, fileType), metadata);
+        }
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static String toHex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static String sha256(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return toHex(digest);
+    }
+
+    // The same bytes under another extension are processed differently
+    private static String cacheKey(String contentHash, FileType fileType) {
+        return fileType + ":" + contentHash;
+    }
+}
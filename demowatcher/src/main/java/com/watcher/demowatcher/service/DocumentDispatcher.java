@@ -0,0 +1,95 @@
+package com.watcher.demowatcher.service;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+
+import com.watcher.demowatcher.config.ProcessingProperties;
+import com.watcher.demowatcher.config.ProcessingProperties.PoolSettings;
+import com.watcher.demowatcher.constants.ExecutionMode;
+import com.watcher.demowatcher.constants.FileType;
+import com.watcher.demowatcher.model.Document;
+import com.watcher.demowatcher.pipeline.BulkheadExecutor;
+import com.watcher.demowatcher.pipeline.ProcessingBulkhead;
+import com.watcher.demowatcher.pipeline.VirtualThreadBulkhead;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+// Routes each document to the pool for its file type, so a burst of large
+// PDFs cannot starve quick CSVs
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentDispatcher {
+
+    private static final FileType[] DEDICATED_TYPES = { FileType.CSV, FileType.PDF, FileType.EXCEL, FileType.IMAGE };
+
+    private final ProcessingProperties processingProperties;
+    private final DocumentProcessorService documentProcessorService;
+
+    private final Map<FileType, ProcessingBulkhead> executors = new EnumMap<>(FileType.class);
+    private ProcessingBulkhead defaultExecutor;
+
+    @PostConstruct
+    public void init() {
+        for (FileType fileType : DEDICATED_TYPES) {
+            executors.put(fileType, createExecutor(fileType.name().toLowerCase(), processingProperties.poolFor(fileType)));
+        }
+        defaultExecutor = createExecutor("default", processingProperties.getDefaults());
+    }
+
+    public void dispatch(Document document) {
+        executorFor(document.getFileType()).execute(() -> documentProcessorService.processDocument(document));
+    }
+
+    // For documents left unfinished by a previous run or another node
+    public void dispatchResumed(Document document) {
+        executorFor(document.getFileType()).execute(() -> documentProcessorService.resume(document));
+    }
+
+    public int getQueuedCount() {
+        int queued = defaultExecutor.getQueueDepth();
+        for (ProcessingBulkhead executor : executors.values()) {
+            queued += executor.getQueueDepth();
+        }
+        return queued;
+    }
+
+    public Map<String, Map<String, Object>> getExecutorMetrics() {
+        Map<String, Map<String, Object>> metrics = new LinkedHashMap<>();
+        for (ProcessingBulkhead executor : executors.values()) {
+            metrics.put(executor.getName(), executor.snapshot());
+        }
+        metrics.put(defaultExecutor.getName(), defaultExecutor.snapshot());
+        return metrics;
+    }
+
+    private ProcessingBulkhead executorFor(FileType fileType) {
+        return executors.getOrDefault(fileType, defaultExecutor);
+    }
+
+    private ProcessingBulkhead createExecutor(String name, PoolSettings settings) {
+        if (processingProperties.getMode() == ExecutionMode.VIRTUAL) {
+            int permits = settings.getVirtualPermits() > 0
+                    ? settings.getVirtualPermits() : Math.max(settings.getCoreSize(), settings.getMaxSize());
+            log.info("Creating {} virtual thread bulkhead (concurrency: {})", name, permits);
+            return new VirtualThreadBulkhead(name, permits);
+        }
+
+        log.info("Creating {} processing pool (threads: {}-{}, queue: {})",
+                 name, settings.getCoreSize(), settings.getMaxSize(), settings.getQueueCapacity());
+        return new BulkheadExecutor(name, settings.getCoreSize(), settings.getMaxSize(),
+                                    settings.getQueueCapacity(), settings.getKeepAliveSeconds());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executors.values().forEach(ProcessingBulkhead::shutdown);
+        defaultExecutor.shutdown();
+    }
+}
@@ -0,0 +1,144 @@
+package com.watcher.demowatcher.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.watcher.demowatcher.config.ClusterProperties;
+import com.watcher.demowatcher.constants.FileType;
+import com.watcher.demowatcher.constants.ProcessingStatus;
+import com.watcher.demowatcher.model.Document;
+import com.watcher.demowatcher.repository.DocumentRepository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentIngestService {
+
+    private static final String REGISTRATION_LOCK_TABLE = "document_registration_lock";
+
+    private final DocumentRepository documentRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ClusterProperties clusterProperties;
+
+    // Rows inserted under the old IDENTITY strategy are invisible to the id generator,
+    // so move it past the highest existing id before the first batch is written
+    @PostConstruct
+    public void alignIdGenerator() {
+        try {
+            long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM documents", Long.class);
+            long nextId = maxId + Document.ID_ALLOCATION_SIZE;
+
+            int updated = jdbcTemplate.update(
+                    "UPDATE " + Document.ID_GENERATOR_TABLE + " SET next_id = ? WHERE name = 'documents' AND next_id < ?",
+                    nextId, nextId);
+            if (updated == 0) {
+                Integer rows = jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM " + Document.ID_GENERATOR_TABLE + " WHERE name = 'documents'", Integer.class);
+                if (rows == null || rows == 0) {
+                    jdbcTemplate.update(
+                            "INSERT INTO " + Document.ID_GENERATOR_TABLE + " (name, next_id) VALUES ('documents', ?)", nextId);
+                }
+            }
+            log.info("Document id generator aligned past existing id {}", maxId);
+        } catch (DataAccessException e) {
+            log.warn("Could not align document id generator: {}", e.getMessage());
+        }
+    }
+
+    // One row that nodes sharing the database lock while they register a batch,
+    // so two watchers seeing the same file cannot both create its record
+    @PostConstruct
+    public void createRegistrationLock() {
+        if (!clusterProperties.isEnabled()) {
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + REGISTRATION_LOCK_TABLE + " (name VARCHAR(64) PRIMARY KEY)");
+        jdbcTemplate.update("INSERT IGNORE INTO " + REGISTRATION_LOCK_TABLE + " (name) VALUES ('documents')");
+    }
+
+    // Creates PENDING records for a batch of settled files in a single transaction.
+    // Ids come from the pooled generator, so the inserts go out as one JDBC batch
+    // (a multi-row INSERT with rewriteBatchedStatements) and are known for dispatch.
+    @Transactional
+    public List<Document> registerFiles(List<Path> paths) {
+        List<Document> documents = new ArrayList<>(paths.size());
+        if (paths.isEmpty()) {
+            return documents;
+        }
+
+        // Taken before any other read in the transaction, so the check below sees every record
+        // committed by the node that held the lock last. Held until commit
+        if (clusterProperties.isEnabled()) {
+            jdbcTemplate.queryForObject("SELECT name FROM " + REGISTRATION_LOCK_TABLE + " WHERE name = 'documents' FOR UPDATE",
+                                        String.class);
+        }
+
+        // Records are looked up before the files are checked. Processing moves a file before it
+        // rewrites the record's path, so a record this misses had its file moved already and the
+        // existence check below skips it. Uploads create their record themselves as well
+        List<String> filePaths = new ArrayList<>(paths.size());
+        for (Path fullPath : paths) {
+            filePaths.add(fullPath.toString());
+        }
+        Set<String> registered = new HashSet<>(documentRepository.findExistingFilePaths(filePaths));
+        if (!registered.isEmpty()) {
+            log.debug("Skipped {} files that already have a document record", registered.size());
+        }
+
+        for (Path fullPath : paths) {
+            if (registered.contains(fullPath.toString())) {
+                continue;
+            }
+            try {
+                // Check if file still exists and is readable
+                if (!Files.exists(fullPath) || !Files.isReadable(fullPath)) {
+                    log.warn("File not readable or doesn't exist: {}", fullPath.getFileName());
+                    continue;
+                }
+
+                // Get file info
+                String originalName = fullPath.getFileName().toString();
+                long fileSize = Files.size(fullPath);
+                FileType fileType = FileType.fromFileName(originalName);
+
+                log.info("Processing new file: {} (Type: {}, Size: {} bytes)",
+                         originalName, fileType, fileSize);
+
+                // Create document record
+                Document document = new Document();
+                document.setFileName(originalName);
+                document.setOriginalName(originalName);
+                document.setFileType(fileType);
+                document.setFileSize(fileSize);
+                document.setFilePath(fullPath.toString());
+                document.setProcessingStatus(ProcessingStatus.PENDING);
+                documents.add(document);
+
+            } catch (IOException e) {
+                log.error("Error reading file info for {}: {}", fullPath.getFileName(), e.getMessage(), e);
+            }
+        }
+
+        if (documents.isEmpty()) {
+            return documents;
+        }
+
+        List<Document> savedDocuments = documentRepository.saveAll(documents);
+        log.info("Created {} document records", savedDocuments.size());
+        return savedDocuments;
+    }
+}
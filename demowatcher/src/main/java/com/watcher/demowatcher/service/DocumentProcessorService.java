@@ -1,12 +1,12 @@
 package com.watcher.demowatcher.service;
 
+import com.watcher.demowatcher.config.ClusterProperties;
 import com.watcher.demowatcher.constants.ProcessingStatus;
 import com.watcher.demowatcher.model.Document;
 import com.watcher.demowatcher.repository.DocumentRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
@@ -26,104 +26,244 @@ public class DocumentProcessorService {
     private final PdfProcessorService pdfProcessorService;
     private final ExcelProcessorService excelProcessorService;
     private final ImageProcessorService imageProcessorService;
+    private final DocumentStatusWriter documentStatusWriter;
+    private final DocumentDeduplicator documentDeduplicator;
+    private final DocumentStatistics documentStatistics;
+    private final ProcessingMetrics processingMetrics;
+    private final ClusterProperties clusterProperties;
     
     @Value("${app.processed.dir}")
     private String processedDir;
     
     @Value("${app.failed.dir}")
     private String failedDir;
+    
+    @Value("${app.processing.final-write-attempts:3}")
+    private int finalWriteAttempts;
+    
+    @Value("${app.processing.final-write-backoff-ms:200}")
+    private long finalWriteBackoffMs;
 
-    @Async
+    // For callers that only have the id, everything else passes the document it already holds
     public void processDocument(Long documentId) {
-        log.info("Starting to process document ID: {}", documentId);
-        
         Document document = documentRepository.findById(documentId)
                 .orElseThrow(() -> new RuntimeException("Document not found"));
+        processDocument(document);
+    }
+
+    // Picks up a document a previous run or another node left unfinished. Its file may
+    // already be in the processed folder if the move happened but the final write did not
+    public void resume(Document document) {
+        if (!Files.exists(Paths.get(document.getFilePath()))) {
+            Path processedPath = Paths.get(processedDir, document.getFileName());
+            if (!Files.exists(processedPath)) {
+                String error = "File no longer exists: " + document.getFilePath();
+                log.warn("Document ID {}: {}", document.getId(), error);
+                int updated = documentRepository.finishProcessing(document.getId(), ProcessingStatus.FAILED,
+                        LocalDateTime.now(), null, error, document.getFilePath(), document.getContentHash(),
+                        clusterProperties.leaseOwner());
+                if (updated > 0) {
+                    documentStatistics.recordTransition(document.getFileType(), document.getProcessingStatus(),
+                                                        ProcessingStatus.FAILED);
+                }
+                return;
+            }
+            document.setFilePath(processedPath.toString());
+        }
+        processDocument(document);
+    }
+
+    // Runs on the file type's pool, see DocumentDispatcher
+    public void processDocument(Document document) {
+        long start = System.nanoTime();
+        processingMetrics.documentStarted();
+        String outcome = ProcessingMetrics.FAILURE;
+        try {
+            outcome = process(document);
+        } finally {
+            processingMetrics.documentFinished();
+            processingMetrics.recordStage("total", document.getFileType(), outcome, System.nanoTime() - start);
+        }
+    }
+
+    private String process(Document document) {
+        Long documentId = document.getId();
+        log.info("Starting to process document ID: {}", documentId);
+        
+        // Update status to PROCESSING, written in batches with other documents
+        documentStatusWriter.markProcessing(documentId);
+        if (document.getProcessingStatus() != ProcessingStatus.PROCESSING) {
+            documentStatistics.recordTransition(document.getFileType(), document.getProcessingStatus(),
+                                                ProcessingStatus.PROCESSING);
+        }
         
+        String metadata;
+        String outcome = ProcessingMetrics.SUCCESS;
         try {
-            // Update status to PROCESSING
-            document.setProcessingStatus(ProcessingStatus.PROCESSING);
-            documentRepository.save(document);
-            
-            // Process based on file type
-            String metadata = null;
-            switch (document.getFileType()) {
-                case CSV:
-                    log.info("Processing CSV file: {}", document.getFileName());
-                    metadata = csvProcessorService.processCsv(document);
-                    break;
-                    
-                case PDF:
-                    log.info("Processing PDF file: {}", document.getFileName());
-                    metadata = pdfProcessorService.processPdf(document);
-                    break;
-                    
-                case EXCEL:
-                    log.info("Processing Excel file: {}", document.getFileName());
-                    metadata = "Excel processing not yet implemented";
-                    break;
-                    
-                case IMAGE:
-                    log.info("Processing Image file: {}", document.getFileName());
-                    metadata = "Image processing not yet implemented";
-                    break;
-                    
-                default:
-                    log.warn("Unknown file type: {}", document.getFileType());
-                    metadata = "File type not supported for processing";
+            // Uploads are hashed while they are written, watched files are hashed here on the type's pool
+            if (document.getContentHash() == null) {
+                long hashStart = System.nanoTime();
+                document.setContentHash(DocumentDeduplicator.sha256(Paths.get(document.getFilePath())));
+                processingMetrics.recordStage("hash", document.getFileType(), ProcessingMetrics.SUCCESS,
+                                              System.nanoTime() - hashStart);
             }
             
-            // Mark as completed
-            document.setProcessingStatus(ProcessingStatus.COMPLETED);
-            document.setProcessedAt(LocalDateTime.now());
-            document.setMetadata(metadata);
-            documentRepository.save(document);
-            
-            // Move file to processed folder
-            moveToProcessed(document);
-            
-            log.info("Successfully processed document ID: {}", documentId);
+            // Same content already processed, reuse its metadata
+            metadata = documentDeduplicator.findCompletedMetadata(document.getContentHash(), document.getFileType());
+            if (metadata != null) {
+                log.info("Document ID {} duplicates already processed content {}, reusing metadata",
+                         documentId, document.getContentHash());
+                outcome = ProcessingMetrics.DUPLICATE;
+            } else {
+                metadata = parse(document);
+            }
             
         } catch (Exception e) {
             log.error("Error processing document ID {}: {}", documentId, e.getMessage(), e);
             
-            // Mark as failed
-            document.setProcessingStatus(ProcessingStatus.FAILED);
-            document.setErrorMessage(e.getMessage());
-            document.setProcessedAt(LocalDateTime.now());
-            documentRepository.save(document);
-            
-            // Move file to failed folder
-            moveToFailed(document);
+            // Move file to failed folder, then mark as failed in the same write as the new path
+            if (!keepLease(document)) {
+                return ProcessingMetrics.LEASE_LOST;
+            }
+            moveAndFinish(document, failedDir, ProcessingStatus.FAILED, null, e.getMessage());
+            return ProcessingMetrics.FAILURE;
+        }
+        
+        // Move file to processed folder, then mark as completed with metadata and new path in one write
+        if (!keepLease(document)) {
+            return ProcessingMetrics.LEASE_LOST;
+        }
+        if (!moveAndFinish(document, processedDir, ProcessingStatus.COMPLETED, metadata, null)) {
+            // The result could not be recorded, fail the document as a processing error would
+            moveAndFinish(document, failedDir, ProcessingStatus.FAILED, null, "Could not record the processing result");
+            return ProcessingMetrics.FAILURE;
         }
+        documentDeduplicator.remember(document.getContentHash(), document.getFileType(), metadata);
+        
+        log.info("Successfully processed document ID: {}", documentId);
+        return outcome;
     }
 
-    private void moveToProcessed(Document document) {
+    // Times the type's processor and counts the bytes it got through
+    private String parse(Document document) {
+        long parseStart = System.nanoTime();
         try {
-            Path sourcePath = Paths.get(document.getFilePath());
-            Path targetPath = Paths.get(processedDir, document.getFileName());
-            
-            // Create directory if not exists
-            Files.createDirectories(targetPath.getParent());
-            
-            // Move file
-            Files.move(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
-            
-            // Update file path in database
-            document.setFilePath(targetPath.toString());
-            documentRepository.save(document);
-            
-            log.info("Moved file to processed folder: {}", targetPath);
-            
-        } catch (IOException e) {
-            log.error("Error moving file to processed folder: {}", e.getMessage(), e);
+            String metadata = processByType(document);
+            processingMetrics.recordStage("parse", document.getFileType(), ProcessingMetrics.SUCCESS,
+                                          System.nanoTime() - parseStart);
+            processingMetrics.recordProcessedBytes(document.getFileType(), document.getFileSize());
+            return metadata;
+        } catch (RuntimeException e) {
+            processingMetrics.recordStage("parse", document.getFileType(), ProcessingMetrics.FAILURE,
+                                          System.nanoTime() - parseStart);
+            throw e;
+        }
+    }
+
+    private String processByType(Document document) {
+        String metadata;
+        // Process based on file type
+        switch (document.getFileType()) {
+            case CSV:
+                log.info("Processing CSV file: {}", document.getFileName());
+                metadata = csvProcessorService.processCsv(document);
+                break;
+                
+            case PDF:
+                log.info("Processing PDF file: {}", document.getFileName());
+                metadata = pdfProcessorService.processPdf(document);
+                break;
+                
+            case EXCEL:
+                log.info("Processing Excel file: {}", document.getFileName());
+                metadata = excelProcessorService.processExcel(document);
+                break;
+                
+            case IMAGE:
+                log.info("Processing Image file: {}", document.getFileName());
+                metadata = imageProcessorService.processImage(document);
+                break;
+                
+            default:
+                log.warn("Unknown file type: {}", document.getFileType());
+                metadata = "File type not supported for processing";
+        }
+        return metadata;
+    }
+
+    // The file is moved before the final write, so a write that fails for good must not leave the
+    // row pointing at a path the file has left: it goes back where the row says it is, and the
+    // document is picked up again by the next restart or, with leasing, once the lease runs out
+    private boolean moveAndFinish(Document document, String targetDir, ProcessingStatus status, String metadata,
+                                  String errorMessage) {
+        String originalPath = document.getFilePath();
+        String filePath = moveTo(document, targetDir);
+        if (finish(document, status, metadata, errorMessage, filePath)) {
+            return true;
+        }
+        if (!filePath.equals(originalPath)) {
+            document.setFilePath(filePath);
+            moveTo(document, Paths.get(originalPath).getParent().toString());
+            document.setFilePath(originalPath);
+        }
+        return false;
+    }
+
+    // Retries transient database errors with a doubling pause, false if the write never went through
+    private boolean finish(Document document, ProcessingStatus status, String metadata, String errorMessage,
+                           String filePath) {
+        long backoffMs = finalWriteBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                int updated = documentRepository.finishProcessing(document.getId(), status, LocalDateTime.now(),
+                                                                  metadata, errorMessage, filePath,
+                                                                  document.getContentHash(), clusterProperties.leaseOwner());
+                // Nothing to count if the record was deleted while it was processed, or its lease expired
+                if (updated > 0) {
+                    documentStatistics.recordTransition(document.getFileType(), ProcessingStatus.PROCESSING, status);
+                } else if (clusterProperties.isEnabled()) {
+                    log.warn("Document ID {} finished after node {} lost its lease, result not recorded",
+                             document.getId(), clusterProperties.getNodeId());
+                }
+                return true;
+            } catch (RuntimeException e) {
+                if (attempt >= finalWriteAttempts) {
+                    log.error("Could not mark document ID {} as {} after {} attempts: {}",
+                              document.getId(), status, attempt, e.getMessage(), e);
+                    return false;
+                }
+                log.warn("Marking document ID {} as {} failed (attempt {}), retrying in {} ms: {}",
+                         document.getId(), status, attempt, backoffMs, e.getMessage());
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                backoffMs *= 2;
+            }
+        }
+    }
+
+    // With leasing on, the file is only moved while this node still holds the document,
+    // and the lease is extended first so it cannot run out between the move and the final write
+    private boolean keepLease(Document document) {
+        String owner = clusterProperties.leaseOwner();
+        if (owner == null
+                || documentRepository.extendLease(document.getId(), owner, clusterProperties.getLeaseSeconds()) > 0) {
+            return true;
         }
+        log.warn("Document ID {} was claimed by another node after node {} lost its lease, leaving its file alone",
+                 document.getId(), owner);
+        return false;
     }
 
-    private void moveToFailed(Document document) {
+    // Returns the new location, or the current one if the move failed
+    private String moveTo(Document document, String targetDir) {
+        long moveStart = System.nanoTime();
         try {
             Path sourcePath = Paths.get(document.getFilePath());
-            Path targetPath = Paths.get(failedDir, document.getFileName());
+            Path targetPath = Paths.get(targetDir, document.getFileName());
             
             // Create directory if not exists
             Files.createDirectories(targetPath.getParent());
@@ -131,14 +271,17 @@ public class DocumentProcessorService {
             // Move file
             Files.move(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
             
-            // Update file path in database
-            document.setFilePath(targetPath.toString());
-            documentRepository.save(document);
+            log.info("Moved file to {}", targetPath);
+            processingMetrics.recordStage("move", document.getFileType(), ProcessingMetrics.SUCCESS,
+                                          System.nanoTime() - moveStart);
             
-            log.info("Moved file to failed folder: {}", targetPath);
+            return targetPath.toString();
             
         } catch (IOException e) {
-            log.error("Error moving file to failed folder: {}", e.getMessage(), e);
+            log.error("Error moving file to {}: {}", targetDir, e.getMessage(), e);
+            processingMetrics.recordStage("move", document.getFileType(), ProcessingMetrics.FAILURE,
+                                          System.nanoTime() - moveStart);
+            return document.getFilePath();
         }
     }
-}
\ No newline at end of file
+}
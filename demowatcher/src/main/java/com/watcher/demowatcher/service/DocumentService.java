@@ -1,26 +1,36 @@
 package com.watcher.demowatcher.service;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.watcher.demowatcher.constants.FileType;
 import com.watcher.demowatcher.constants.ProcessingStatus;
+import com.watcher.demowatcher.dto.DocumentPageDTO;
 import com.watcher.demowatcher.dto.DocumentResponseDTO;
 import com.watcher.demowatcher.dto.UploadResponseDTO;
 import com.watcher.demowatcher.exception.FileProcessingException;
+import com.watcher.demowatcher.exception.InvalidRequestException;
 import com.watcher.demowatcher.model.Document;
+import com.watcher.demowatcher.repository.DocumentDetail;
 import com.watcher.demowatcher.repository.DocumentRepository;
+import com.watcher.demowatcher.repository.DocumentSummary;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -34,66 +44,142 @@ public class DocumentService {
 	
 	@Autowired
 	private DocumentRepository documentRepository;
+	
+	@Autowired
+	private UploadStorage uploadStorage;
+	
+	@Autowired
+	private DocumentClaimer documentClaimer;
+	
+	@Autowired
+	private DocumentStatistics documentStatistics;
     
     @Value("${app.upload.dir}")
     private String uploadDir;
     
+    @Value("${app.documents.page.default-size:50}")
+    private int defaultPageSize;
+    
+    @Value("${app.documents.page.max-size:500}")
+    private int maxPageSize;
+    
+    // Cursor for the first page, later than any stored upload time
+    private static final LocalDateTime FIRST_PAGE_UPLOADED_AT = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    
+    // Puts an upload's file at its final path, run once the document record exists
+    @FunctionalInterface
+    public interface FilePlacement {
+        void place() throws IOException;
+    }
+    
     public UploadResponseDTO uploadFile(MultipartFile file) {
         if (file.isEmpty()) {
             throw new FileProcessingException("File is empty");
         }
         
+        try (InputStream in = file.getInputStream()) {
+            return storeUpload(file.getOriginalFilename(), in);
+        } catch (IOException e) {
+            log.error("Error uploading file: {}", e.getMessage());
+            throw new FileProcessingException("Failed to upload file: " + e.getMessage(), e);
+        }
+    }
+    
+    // Raw request body, written straight to the upload directory without multipart
+    // buffering, so there is no size cap and the data is written once
+    public UploadResponseDTO uploadStream(String filename, InputStream body) {
         try {
-            // Create upload directory if not exists
-            File directory = new File(uploadDir);
-            if (!directory.exists()) {
-                directory.mkdirs();
-            }
-            
-            // Generate unique filename
-            String originalFilename = file.getOriginalFilename();
-            String uniqueFilename = UUID.randomUUID().toString() + "_" + originalFilename;
-            Path filePath = Paths.get(uploadDir, uniqueFilename);
-            
-            // Save file to disk
-            Files.copy(file.getInputStream(), filePath);
-            
-            // Create document record
-            Document document = new Document();
-            document.setFileName(uniqueFilename);
-            document.setOriginalName(originalFilename);
-            document.setFileType(FileType.fromFileName(originalFilename));
-            document.setFileSize(file.getSize());
-            document.setFilePath(filePath.toString());
-            document.setProcessingStatus(ProcessingStatus.PENDING);
-            
-            // Save to database
-            Document savedDocument = documentRepository.save(document);
-            
-            log.info("File uploaded successfully: {}", uniqueFilename);
-            
-            // Return response
-            UploadResponseDTO response = new UploadResponseDTO();
-            response.setId(savedDocument.getId());
-            response.setFileName(savedDocument.getFileName());
-            response.setOriginalName(savedDocument.getOriginalName());
-            response.setFileType(savedDocument.getFileType());
-            response.setFileSize(savedDocument.getFileSize());
-            response.setStatus(savedDocument.getProcessingStatus());
-            response.setMessage("File uploaded successfully");
-            
-            return response;
-            
+            return storeUpload(filename, body);
         } catch (IOException e) {
             log.error("Error uploading file: {}", e.getMessage());
             throw new FileProcessingException("Failed to upload file: " + e.getMessage(), e);
         }
     }
     
-    public List<DocumentResponseDTO> getAllDocuments() {
-        return documentRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    // Last path segment of the client's name, anything that does not leave a usable name is rejected
+    static String clientFileName(String filename) {
+        if (filename == null || filename.isBlank()) {
+            throw new InvalidRequestException("File name is required");
+        }
+        try {
+            Path name = Paths.get(filename).getFileName();
+            if (name != null && !name.toString().isBlank() && !name.toString().equals("..")) {
+                return name.toString();
+            }
+        } catch (InvalidPathException e) {
+            // NUL and the like, reported below
+        }
+        throw new InvalidRequestException("Invalid file name: " + filename);
+    }
+    
+    private UploadResponseDTO storeUpload(String filename, InputStream body) throws IOException {
+        // Generate unique filename, keeping only the last path segment of the client's name
+        String originalFilename = clientFileName(filename);
+        String uniqueFilename = UUID.randomUUID().toString() + "_" + originalFilename;
+        Path filePath = Paths.get(uploadDir, uniqueFilename);
+        
+        // Save file to disk, hashing the content on the way for duplicate detection
+        UploadStorage.StoredUpload stored = uploadStorage.store(body, filePath);
+        try {
+            if (stored.size() == 0) {
+                throw new FileProcessingException("File is empty");
+            }
+            return registerUpload(uniqueFilename, originalFilename, filePath, stored.size(), stored.contentHash(),
+                                  () -> uploadStorage.publish(stored, filePath));
+        } finally {
+            uploadStorage.discard(stored);
+        }
+    }
+    
+    // Creates the record for an upload, then has placement put its file in the upload
+    // directory and dispatches it. The record is committed before the file appears, so
+    // the watcher's existing-path check always finds it and never registers a second one.
+    // A null content hash is computed when the document is processed.
+    public UploadResponseDTO registerUpload(String uniqueFilename, String originalFilename, Path filePath,
+                                            long size, String contentHash, FilePlacement placement) {
+        // Create document record
+        Document document = new Document();
+        document.setFileName(uniqueFilename);
+        document.setOriginalName(originalFilename);
+        document.setFileType(FileType.fromFileName(originalFilename));
+        document.setFileSize(size);
+        document.setFilePath(filePath.toString());
+        document.setProcessingStatus(ProcessingStatus.PENDING);
+        document.setContentHash(contentHash);
+        
+        // Held by this node until the file is in place, so no other node claims a record without a file
+        documentClaimer.reserve(document);
+        
+        // Save to database, the watcher skips paths that already have a record
+        Document savedDocument = documentRepository.save(document);
+        try {
+            placement.place();
+        } catch (IOException e) {
+            documentRepository.deleteById(savedDocument.getId());
+            throw new FileProcessingException("Failed to store upload: " + e.getMessage(), e);
+        }
+        documentStatistics.recordCreated(savedDocument.getFileType());
+        documentClaimer.submit(savedDocument);
+        
+        log.info("File uploaded successfully: {} ({} bytes)", uniqueFilename, size);
+        
+        // Return response
+        UploadResponseDTO response = new UploadResponseDTO();
+        response.setId(savedDocument.getId());
+        response.setFileName(savedDocument.getFileName());
+        response.setOriginalName(savedDocument.getOriginalName());
+        response.setFileType(savedDocument.getFileType());
+        response.setFileSize(savedDocument.getFileSize());
+        response.setStatus(savedDocument.getProcessingStatus());
+        response.setMessage("File uploaded successfully");
+        
+        return response;
+    }
+    
+    public DocumentPageDTO getDocuments(String cursor, Integer limit, boolean includeDetails) {
+        return page(cursor, limit, includeDetails
+                ? documentRepository::findDetailsBefore
+                : documentRepository::findSummariesBefore);
     }
     
     public DocumentResponseDTO getDocumentById(Long id) {
@@ -102,16 +188,18 @@ public class DocumentService {
         return convertToDTO(document);
     }
     
-    public List<DocumentResponseDTO> getDocumentsByStatus(ProcessingStatus status) {
-        return documentRepository.findByProcessingStatus(status).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public DocumentPageDTO getDocumentsByStatus(ProcessingStatus status, String cursor, Integer limit,
+                                                boolean includeDetails) {
+        return page(cursor, limit, includeDetails
+                ? (uploadedAt, id, pageable) -> documentRepository.findDetailsByStatusBefore(status, uploadedAt, id, pageable)
+                : (uploadedAt, id, pageable) -> documentRepository.findSummariesByStatusBefore(status, uploadedAt, id, pageable));
     }
     
-    public List<DocumentResponseDTO> getDocumentsByType(FileType fileType) {
-        return documentRepository.findByFileType(fileType).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public DocumentPageDTO getDocumentsByType(FileType fileType, String cursor, Integer limit,
+                                              boolean includeDetails) {
+        return page(cursor, limit, includeDetails
+                ? (uploadedAt, id, pageable) -> documentRepository.findDetailsByTypeBefore(fileType, uploadedAt, id, pageable)
+                : (uploadedAt, id, pageable) -> documentRepository.findSummariesByTypeBefore(fileType, uploadedAt, id, pageable));
     }
     
     public void deleteDocument(Long id) {
@@ -128,9 +216,64 @@ public class DocumentService {
         
         // Delete from database
         documentRepository.delete(document);
+        documentStatistics.recordDeleted(document.getFileType(), document.getProcessingStatus());
         log.info("Document deleted: {}", document.getFileName());
     }
     
+    private interface PageQuery {
+        List<? extends DocumentSummary> find(LocalDateTime uploadedAt, Long id, Pageable pageable);
+    }
+    
+    // One row past the page size tells whether there is a next page without a count query
+    private DocumentPageDTO page(String cursor, Integer limit, PageQuery query) {
+        int pageSize = limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+        
+        LocalDateTime uploadedAt = FIRST_PAGE_UPLOADED_AT;
+        long id = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = decoded.lastIndexOf('|');
+                uploadedAt = LocalDateTime.parse(decoded.substring(0, separator));
+                id = Long.parseLong(decoded.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new InvalidRequestException("Invalid cursor: " + cursor);
+            }
+        }
+        
+        List<? extends DocumentSummary> rows = query.find(uploadedAt, id, PageRequest.of(0, pageSize + 1));
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            DocumentSummary last = rows.get(pageSize - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (last.getUploadedAt() + "|" + last.getId()).getBytes(StandardCharsets.UTF_8));
+        }
+        
+        List<DocumentResponseDTO> documents = rows.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+        return new DocumentPageDTO(documents, nextCursor);
+    }
+    
+    private DocumentResponseDTO convertToDTO(DocumentSummary row) {
+        DocumentResponseDTO dto = new DocumentResponseDTO();
+        dto.setId(row.getId());
+        dto.setFileName(row.getFileName());
+        dto.setOriginalName(row.getOriginalName());
+        dto.setFileType(row.getFileType());
+        dto.setFileSize(row.getFileSize());
+        dto.setFilePath(row.getFilePath());
+        dto.setProcessingStatus(row.getProcessingStatus());
+        dto.setUploadedAt(row.getUploadedAt());
+        dto.setProcessedAt(row.getProcessedAt());
+        if (row instanceof DocumentDetail detail) {
+            dto.setErrorMessage(detail.getErrorMessage());
+            dto.setMetadata(detail.getMetadata());
+        }
+        return dto;
+    }
+    
     private DocumentResponseDTO convertToDTO(Document document) {
         DocumentResponseDTO dto = new DocumentResponseDTO();
         dto.setId(document.getId());
@@ -0,0 +1,170 @@
+package com.watcher.demowatcher.service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.watcher.demowatcher.config.ClusterProperties;
+import com.watcher.demowatcher.constants.FileType;
+import com.watcher.demowatcher.constants.ProcessingStatus;
+import com.watcher.demowatcher.repository.DocumentRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+// Document counts per (status, file type), kept in memory so the stats endpoint
+// never scans the table. Seeded from one GROUP BY at startup, moved by the state
+// transitions, and periodically reconciled against the database to undo drift
+// from writes that failed after being counted. When several nodes share the
+// database each one only sees its own transitions, so the counters are then
+// left alone and refreshed from the GROUP BY every few seconds instead.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentStatistics {
+
+    private static final ProcessingStatus[] STATUSES = ProcessingStatus.values();
+    private static final FileType[] FILE_TYPES = FileType.values();
+
+    private final DocumentRepository documentRepository;
+    private final ClusterProperties clusterProperties;
+
+    @Value("${app.stats.reconcile-minutes:5}")
+    private long reconcileMinutes;
+
+    // Striped counters, workers on every pool update them without contending on a lock
+    private final LongAdder[][] counts = new LongAdder[STATUSES.length][FILE_TYPES.length];
+    private volatile LocalDateTime reconciledAt;
+    private ScheduledExecutorService reconciler;
+
+    @PostConstruct
+    public void init() {
+        for (LongAdder[] row : counts) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = new LongAdder();
+            }
+        }
+        reconcile();
+
+        reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setName("StatsReconcilerThread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (clusterProperties.isEnabled()) {
+            long refreshSeconds = clusterProperties.getStatsRefreshSeconds();
+            reconciler.scheduleWithFixedDelay(this::reconcile, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+        } else {
+            reconciler.scheduleWithFixedDelay(this::reconcile, reconcileMinutes, reconcileMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    public void recordCreated(FileType fileType) {
+        if (!clusterProperties.isEnabled()) {
+            counter(ProcessingStatus.PENDING, fileType).increment();
+        }
+    }
+
+    public void recordTransition(FileType fileType, ProcessingStatus from, ProcessingStatus to) {
+        if (!clusterProperties.isEnabled()) {
+            counter(from, fileType).decrement();
+            counter(to, fileType).increment();
+        }
+    }
+
+    public void recordDeleted(FileType fileType, ProcessingStatus status) {
+        if (!clusterProperties.isEnabled()) {
+            counter(status, fileType).decrement();
+        }
+    }
+
+    public long getCount(ProcessingStatus status, FileType fileType) {
+        return counter(status, fileType).sum();
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        Map<String, Long> byFileType = new LinkedHashMap<>();
+        Map<String, Map<String, Long>> byStatusAndType = new LinkedHashMap<>();
+        long total = 0;
+
+        for (FileType fileType : FILE_TYPES) {
+            byFileType.put(fileType.name(), 0L);
+        }
+        for (ProcessingStatus status : STATUSES) {
+            Map<String, Long> row = new LinkedHashMap<>();
+            long statusTotal = 0;
+            for (FileType fileType : FILE_TYPES) {
+                long count = counter(status, fileType).sum();
+                row.put(fileType.name(), count);
+                byFileType.merge(fileType.name(), count, Long::sum);
+                statusTotal += count;
+            }
+            byStatus.put(status.name(), statusTotal);
+            byStatusAndType.put(status.name(), row);
+            total += statusTotal;
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("total", total);
+        stats.put("byStatus", byStatus);
+        stats.put("byFileType", byFileType);
+        stats.put("byStatusAndType", byStatusAndType);
+        stats.put("reconciledAt", reconciledAt);
+        return stats;
+    }
+
+    // Sets every counter to what the database holds. Reading the counters before the query and
+    // adding the difference would count transitions committed during the query twice, once in the
+    // counter and once in the result. Setting them outright instead can only miss the transitions
+    // counted between the query and the correction, which the next reconcile puts right, so the
+    // error never accumulates.
+    private void reconcile() {
+        try {
+            long[][] actual = new long[STATUSES.length][FILE_TYPES.length];
+            List<Object[]> rows = documentRepository.countByStatusAndFileTypeGrouped();
+            for (Object[] row : rows) {
+                ProcessingStatus status = (ProcessingStatus) row[0];
+                FileType fileType = (FileType) row[1];
+                actual[status.ordinal()][fileType.ordinal()] = ((Number) row[2]).longValue();
+            }
+
+            long drift = 0;
+            for (int s = 0; s < STATUSES.length; s++) {
+                for (int t = 0; t < FILE_TYPES.length; t++) {
+                    long delta = actual[s][t] - counts[s][t].sum();
+                    if (delta != 0) {
+                        counts[s][t].add(delta);
+                        drift += Math.abs(delta);
+                    }
+                }
+            }
+            reconciledAt = LocalDateTime.now();
+            log.debug("Reconciled document statistics, corrected {}", drift);
+        } catch (Exception e) {
+            log.error("Error reconciling document statistics: {}", e.getMessage(), e);
+        }
+    }
+
+    private LongAdder counter(ProcessingStatus status, FileType fileType) {
+        return counts[status.ordinal()][fileType.ordinal()];
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+        }
+    }
+}
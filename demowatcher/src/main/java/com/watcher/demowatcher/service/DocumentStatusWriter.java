@@ -0,0 +1,86 @@
+package com.watcher.demowatcher.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.watcher.demowatcher.constants.ProcessingStatus;
+import com.watcher.demowatcher.repository.DocumentRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+// Collects PENDING -> PROCESSING transitions from the workers and writes them
+// as one UPDATE ... WHERE id IN (...) per flush instead of a save per document
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentStatusWriter {
+
+    private static final int MAX_IDS_PER_STATEMENT = 500;
+
+    private final DocumentRepository documentRepository;
+
+    @Value("${app.processing.status-flush-ms:50}")
+    private long flushIntervalMs;
+
+    private final Queue<Long> processingIds = new ConcurrentLinkedQueue<>();
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void init() {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setName("StatusWriterThread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void markProcessing(Long documentId) {
+        processingIds.add(documentId);
+    }
+
+    private void flush() {
+        List<Long> ids = new ArrayList<>();
+        Long id;
+        while ((id = processingIds.poll()) != null) {
+            ids.add(id);
+            if (ids.size() == MAX_IDS_PER_STATEMENT) {
+                write(ids);
+                ids = new ArrayList<>();
+            }
+        }
+        if (!ids.isEmpty()) {
+            write(ids);
+        }
+    }
+
+    private void write(List<Long> ids) {
+        try {
+            // Conditional on PENDING, so a document that already finished is never moved back
+            int updated = documentRepository.updateStatusForIds(ids, ProcessingStatus.PENDING, ProcessingStatus.PROCESSING);
+            log.debug("Marked {} of {} documents as PROCESSING", updated, ids.size());
+        } catch (Exception e) {
+            log.error("Error marking {} documents as PROCESSING: {}", ids.size(), e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.shutdown();
+            flush();
+        }
+    }
+}
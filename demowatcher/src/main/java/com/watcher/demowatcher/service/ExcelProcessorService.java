@@ -1,123 +1,359 @@
 package com.watcher.demowatcher.service;
 
-import java.io.FileInputStream;
+import java.io.File;
+import java.io.InputStream;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.DateUtil;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.RowRecord;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagingURIHelper;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
 
+import com.watcher.demowatcher.analytics.TableProfile;
 import com.watcher.demowatcher.model.Document;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import tools.jackson.databind.ObjectMapper;
 
+// Workbooks are read with POI's streaming event APIs (SAX for .xlsx, record
+// events for .xls) so only the current row is ever held, never the whole sheet.
+// Every sheet is profiled column by column, .xlsx sheets concurrently.
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class ExcelProcessorService {
-	
+
+	private final ObjectMapper objectMapper;
+
+	@Value("${app.excel.parallel.threads:0}")
+	private int parallelThreads;
+
+	private ForkJoinPool sheetPool;
+
+	@PostConstruct
+	public void init() {
+	    int threads = parallelThreads > 0 ? parallelThreads : Runtime.getRuntime().availableProcessors();
+	    sheetPool = new ForkJoinPool(threads);
+	}
+
 	 public String processExcel(Document document) {
 	        try {
-	            FileInputStream fis = new FileInputStream(Paths.get(document.getFilePath()).toFile());
-	            
+	            File file = Paths.get(document.getFilePath()).toFile();
+
 	            // Determine if it's .xls or .xlsx
-	            Workbook workbook;
+	            List<SheetSummary> sheets;
 	            String fileName = document.getFileName().toLowerCase();
-	            
+
 	            if (fileName.endsWith(".xlsx")) {
-	                workbook = new XSSFWorkbook(fis);
 	                log.info("Processing XLSX file");
+	                sheets = readXlsx(file);
 	            } else if (fileName.endsWith(".xls")) {
-	                workbook = new HSSFWorkbook(fis);
 	                log.info("Processing XLS file");
+	                sheets = readXls(file);
 	            } else {
 	                throw new RuntimeException("Unsupported Excel format");
 	            }
-	            
-	            // Get sheet count
-	            int sheetCount = workbook.getNumberOfSheets();
-	            int totalRows = 0;
+
+	            long totalRows = 0;
 	            int totalColumns = 0;
 	            List<String> sheetNames = new ArrayList<>();
-	            
-	            // Process each sheet
-	            for (int i = 0; i < sheetCount; i++) {
-	                Sheet sheet = workbook.getSheetAt(i);
-	                String sheetName = sheet.getSheetName();
-	                sheetNames.add(sheetName);
-	                
-	                int rowCount = sheet.getPhysicalNumberOfRows();
-	                totalRows += rowCount;
-	                
-	                // Get column count from first row (header)
-	                if (rowCount > 0) {
-	                    Row firstRow = sheet.getRow(sheet.getFirstRowNum());
-	                    if (firstRow != null) {
-	                        int colCount = firstRow.getPhysicalNumberOfCells();
-	                        if (colCount > totalColumns) {
-	                            totalColumns = colCount;
-	                        }
-	                        
-	                        // Log header information
-	                        log.info("Sheet: {}, Rows: {}, Columns: {}", sheetName, rowCount, colCount);
-	                        
-	                        // Extract headers from first row
-	                        List<String> headers = new ArrayList<>();
-	                        for (Cell cell : firstRow) {
-	                            headers.add(getCellValueAsString(cell));
-	                        }
-	                        log.debug("Headers in {}: {}", sheetName, headers);
-	                    }
-	                }
+	            for (SheetSummary sheet : sheets) {
+	                sheetNames.add(sheet.name);
+	                totalRows += sheet.rows;
+	                totalColumns = Math.max(totalColumns, sheet.headers.size());
+	                log.info("Sheet: {}, Rows: {}, Columns: {}", sheet.name, sheet.rows, sheet.headers.size());
+	                log.debug("Headers in {}: {}", sheet.name, sheet.headers);
 	            }
-	            
-	            workbook.close();
-	            fis.close();
-	            
-	            String metadata = String.format(
+
+	            log.info("Excel processing complete: {} sheets, {} total rows", sheets.size(), totalRows);
+
+	            Map<String, Object> metadata = new LinkedHashMap<>();
+	            metadata.put("summary", String.format(
 	                "Excel processed successfully. Sheets: %d, Total Rows: %d, Max Columns: %d, Sheet Names: %s",
-	                sheetCount, totalRows, totalColumns, sheetNames
-	            );
-	            
-	            log.info("Excel processing complete: {} sheets, {} total rows", sheetCount, totalRows);
-	            
-	            return metadata;
-	            
+	                sheets.size(), totalRows, totalColumns, sheetNames
+	            ));
+	            List<Map<String, Object>> sheetMaps = new ArrayList<>(sheets.size());
+	            for (SheetSummary sheet : sheets) {
+	                sheetMaps.add(sheet.toMap());
+	            }
+	            metadata.put("sheets", sheetMaps);
+	            return objectMapper.writeValueAsString(metadata);
+
 	        } catch (Exception e) {
 	            log.error("Error processing Excel: {}", e.getMessage(), e);
 	            throw new RuntimeException("Excel processing failed: " + e.getMessage(), e);
 	        }
 	    }
-	    
-	    private String getCellValueAsString(Cell cell) {
-	        if (cell == null) {
-	            return "";
+
+	 // Shared strings are the workbook's unique strings, they are loaded once and
+	 // shared read-only. Each sheet is then streamed and profiled on the sheet pool
+	 // through its own package handle, so no zip state is shared between threads.
+	 List<SheetSummary> readXlsx(File file) throws Exception {
+	        ReadOnlySharedStringsTable strings;
+	        List<String> sheetNames = new ArrayList<>();
+	        List<String> partNames = new ArrayList<>();
+	        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+	            strings = new ReadOnlySharedStringsTable(pkg, false);
+	            XSSFReader.SheetIterator iterator = (XSSFReader.SheetIterator) new XSSFReader(pkg).getSheetsData();
+	            while (iterator.hasNext()) {
+	                iterator.next().close();
+	                sheetNames.add(iterator.getSheetName());
+	                partNames.add(iterator.getSheetPart().getPartName().getName());
+	            }
+	        }
+
+	        List<Callable<SheetSummary>> tasks = new ArrayList<>(sheetNames.size());
+	        for (int i = 0; i < sheetNames.size(); i++) {
+	            String sheetName = sheetNames.get(i);
+	            String partName = partNames.get(i);
+	            tasks.add(() -> readXlsxSheet(file, sheetName, partName, strings));
+	        }
+
+	        List<SheetSummary> sheets = new ArrayList<>(tasks.size());
+	        for (Future<SheetSummary> result : sheetPool.invokeAll(tasks)) {
+	            try {
+	                sheets.add(result.get());
+	            } catch (ExecutionException e) {
+	                throw e.getCause() instanceof Exception cause ? cause : e;
+	            }
 	        }
-	        
-	        switch (cell.getCellType()) {
-	            case STRING:
-	                return cell.getStringCellValue();
-	            case NUMERIC:
-	                if (DateUtil.isCellDateFormatted(cell)) {
-	                    return cell.getDateCellValue().toString();
-	                } else {
-	                    return String.valueOf(cell.getNumericCellValue());
+	        return sheets;
+	    }
+
+	 private SheetSummary readXlsxSheet(File file, String sheetName, String partName,
+	                                    ReadOnlySharedStringsTable strings) throws Exception {
+	        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ);
+	             InputStream sheetStream = pkg.getPart(PackagingURIHelper.createPartName(partName)).getInputStream()) {
+	            StylesTable styles = new XSSFReader(pkg).getStylesTable();
+	            SheetSummary sheet = new SheetSummary(sheetName);
+	            XMLReader parser = XMLHelper.newXMLReader();
+	            parser.setContentHandler(new XSSFSheetXMLHandler(
+	                    styles, null, strings, new XlsxSheetHandler(sheet), new DataFormatter(), false));
+	            parser.parse(new InputSource(sheetStream));
+	            sheet.finish();
+	            return sheet;
+	        }
+	    }
+
+	 // A .xls workbook is a single record stream with the sheets one after another,
+	 // so its sheets are profiled in that one pass
+	 List<SheetSummary> readXls(File file) throws Exception {
+	        XlsRecordListener listener = new XlsRecordListener();
+	        try (POIFSFileSystem fs = new POIFSFileSystem(file, true)) {
+	            HSSFRequest request = new HSSFRequest();
+	            request.addListenerForAllRecords(listener.formatListener);
+	            new HSSFEventFactory().processWorkbookEvents(request, fs);
+	        }
+	        for (SheetSummary sheet : listener.sheets) {
+	            sheet.finish();
+	        }
+	        return listener.sheets;
+	    }
+
+	@PreDestroy
+	public void shutdown() {
+	    if (sheetPool != null) {
+	        sheetPool.shutdownNow();
+	    }
+	}
+
+	 // The first row present in the sheet is the header, as with the workbook model.
+	 // Every later row goes into the column profiles, cells it skips count as nulls.
+	 static final class SheetSummary {
+
+	        private final String name;
+	        private final List<String> headers = new ArrayList<>();
+	        private TableProfile profile;
+	        private long rows;
+	        private int firstRow = -1;
+	        private int currentRow = -1;
+	        private int nextColumn;
+
+	        private SheetSummary(String name) {
+	            this.name = name;
+	        }
+
+	        private void countRow(int rowNum) {
+	            rows++;
+	            if (firstRow < 0) {
+	                firstRow = rowNum;
+	            }
+	        }
+
+	        // Rows are followed by their cells, which also covers .xls where a block of
+	        // row records comes before the cells of those rows
+	        private void cell(int rowNum, int column, String value) {
+	            if (rowNum != currentRow) {
+	                endRow();
+	                currentRow = rowNum;
+	                nextColumn = 0;
+	            }
+	            if (rowNum == firstRow) {
+	                // Blank header cells are not reported, keep later headers on their own column
+	                while (headers.size() < column) {
+	                    headers.add("column_" + (headers.size() + 1));
 	                }
-	            case BOOLEAN:
-	                return String.valueOf(cell.getBooleanCellValue());
-	            case FORMULA:
-	                return cell.getCellFormula();
-	            case BLANK:
-	                return "";
-	            default:
-	                return "";
+	                headers.add(value);
+	                return;
+	            }
+	            if (profile == null) {
+	                profile = new TableProfile(headers);
+	            }
+	            for (; nextColumn < column; nextColumn++) {
+	                profile.addValue(nextColumn, null);
+	            }
+	            profile.addValue(column, value);
+	            nextColumn = column + 1;
+	        }
+
+	        private void endRow() {
+	            if (currentRow >= 0 && currentRow != firstRow) {
+	                for (; nextColumn < headers.size(); nextColumn++) {
+	                    profile.addValue(nextColumn, null);
+	                }
+	                profile.incrementRowCount();
+	            }
+	            currentRow = -1;
+	        }
+
+	        private void finish() {
+	            endRow();
+	            if (profile == null) {
+	                profile = new TableProfile(headers);
+	            }
+	        }
+
+	        String getName() {
+	            return name;
+	        }
+
+	        TableProfile getProfile() {
+	            return profile;
+	        }
+
+	        private Map<String, Object> toMap() {
+	            Map<String, Object> map = new LinkedHashMap<>();
+	            map.put("name", name);
+	            map.put("rows", rows);
+	            map.put("columns", headers.size());
+	            map.put("headers", headers);
+	            map.put("profile", profile.toMap());
+	            return map;
+	        }
+	    }
+
+	 private static final class XlsxSheetHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+	        private final SheetSummary sheet;
+	        private int currentRow;
+	        private int nextColumn;
+
+	        private XlsxSheetHandler(SheetSummary sheet) {
+	            this.sheet = sheet;
+	        }
+
+	        @Override
+	        public void startRow(int rowNum) {
+	            currentRow = rowNum;
+	            nextColumn = 0;
+	            sheet.countRow(rowNum);
+	        }
+
+	        @Override
+	        public void endRow(int rowNum) {
+	            sheet.endRow();
+	        }
+
+	        // Cells without a reference are positional, as the spec allows
+	        @Override
+	        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+	            int column = cellReference == null ? nextColumn : new CellReference(cellReference).getCol();
+	            nextColumn = column + 1;
+	            sheet.cell(currentRow, column, formattedValue == null ? "" : formattedValue);
+	        }
+	    }
+
+	 // Sheet names come first in the workbook globals, each sheet's records follow its BOF in the same order
+	 private static final class XlsRecordListener implements HSSFListener {
+
+	        private final FormatTrackingHSSFListener formatListener = new FormatTrackingHSSFListener(this);
+	        private final List<String> sheetNames = new ArrayList<>();
+	        private final List<SheetSummary> sheets = new ArrayList<>();
+	        private SSTRecord sharedStrings;
+	        private SheetSummary current;
+
+	        @Override
+	        public void processRecord(Record record) {
+	            if (record instanceof BoundSheetRecord boundSheet) {
+	                sheetNames.add(boundSheet.getSheetname());
+	            } else if (record instanceof BOFRecord bof && bof.getType() == BOFRecord.TYPE_WORKSHEET) {
+	                int index = sheets.size();
+	                current = new SheetSummary(index < sheetNames.size() ? sheetNames.get(index) : "Sheet" + (index + 1));
+	                sheets.add(current);
+	            } else if (record instanceof SSTRecord sst) {
+	                sharedStrings = sst;
+	            } else if (record instanceof RowRecord row && current != null) {
+	                current.countRow(row.getRowNumber());
+	            } else if (record instanceof CellValueRecordInterface cell && current != null) {
+	                current.cell(cell.getRow(), cell.getColumn(), valueOf(cell));
+	            }
+	        }
+
+	        private String valueOf(CellValueRecordInterface cell) {
+	            if (cell instanceof LabelSSTRecord label) {
+	                return sharedStrings == null ? "" : sharedStrings.getString(label.getSSTIndex()).getString();
+	            }
+	            if (cell instanceof LabelRecord label) {
+	                return label.getValue();
+	            }
+	            if (cell instanceof NumberRecord number) {
+	                return formatListener.formatNumberDateCell(number);
+	            }
+	            if (cell instanceof BoolErrRecord boolErr) {
+	                return boolErr.isBoolean() ? String.valueOf(boolErr.getBooleanValue()) : "";
+	            }
+	            if (cell instanceof FormulaRecord formula) {
+	                return formatListener.formatNumberDateCell(formula);
+	            }
+	            return "";
 	        }
 	    }
-	
 }
@@ -0,0 +1,145 @@
+package com.watcher.demowatcher.service;
+
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+// Content-addressed store for extracted text, one gzip file per source file
+// SHA-256 under a two character fan-out directory. Text is written as several
+// gzip members (one per extraction range) that are concatenated on commit, a
+// concatenation of members is itself a valid gzip file. Reads decompress
+// straight from a memory-mapped view of the file.
+@Service
+@Slf4j
+public class ExtractedTextStore {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String SUFFIX = ".txt.gz";
+
+    @Value("${app.text-store.dir:./upload-folders/text-store}")
+    private String storeDir;
+
+    private Path root;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(storeDir);
+        Files.createDirectories(root);
+    }
+
+    public boolean contains(String sha256) {
+        return Files.exists(pathFor(sha256));
+    }
+
+    // Caller closes the reader
+    public Reader open(String sha256) throws IOException {
+        FileChannel channel = FileChannel.open(pathFor(sha256), StandardOpenOption.READ);
+        InputStream mapped = new FilterInputStream(new MappedRangeInputStream(channel, 0, channel.size())) {
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        };
+        return new InputStreamReader(new GZIPInputStream(mapped, BUFFER_SIZE), StandardCharsets.UTF_8);
+    }
+
+    public Pending begin(String sha256) {
+        return new Pending(sha256);
+    }
+
+    private Path pathFor(String sha256) {
+        return root.resolve(sha256.substring(0, 2)).resolve(sha256 + SUFFIX);
+    }
+
+    // Text being written. Parts are private to this write so concurrent writes of
+    // the same content never collide, the last commit replaces identical text.
+    public final class Pending {
+
+        private final String sha256;
+        private final String token = UUID.randomUUID().toString();
+        private final List<Path> parts = new ArrayList<>();
+
+        private Pending(String sha256) {
+            this.sha256 = sha256;
+        }
+
+        // Parts are concatenated in index order, each one is a complete gzip member
+        public synchronized Writer openPart(int index) throws IOException {
+            while (parts.size() <= index) {
+                parts.add(null);
+            }
+            Path part = root.resolve(sha256 + "." + token + "." + index + ".part");
+            parts.set(index, part);
+            return new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(part), BUFFER_SIZE), StandardCharsets.UTF_8),
+                    BUFFER_SIZE);
+        }
+
+        public synchronized void commit() throws IOException {
+            Path target = pathFor(sha256);
+            Files.createDirectories(target.getParent());
+            Path temp = root.resolve(sha256 + "." + token + ".tmp");
+
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                for (Path part : parts) {
+                    try (FileChannel in = FileChannel.open(part, StandardOpenOption.READ)) {
+                        long size = in.size();
+                        long position = 0;
+                        while (position < size) {
+                            position += in.transferTo(position, size - position, out);
+                        }
+                    }
+                }
+                out.force(false);
+            } catch (IOException e) {
+                Files.deleteIfExists(temp);
+                deleteParts();
+                throw e;
+            }
+
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            deleteParts();
+            log.debug("Stored extracted text {} ({} parts)", target, parts.size());
+        }
+
+        public synchronized void abort() {
+            deleteParts();
+        }
+
+        private void deleteParts() {
+            for (Path part : parts) {
+                if (part == null) {
+                    continue;
+                }
+                try {
+                    Files.deleteIfExists(part);
+                } catch (IOException e) {
+                    log.warn("Could not delete text part {}: {}", part, e.getMessage());
+                }
+            }
+        }
+    }
+}
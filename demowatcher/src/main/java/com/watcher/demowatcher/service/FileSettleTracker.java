@@ -0,0 +1,222 @@
+package com.watcher.demowatcher.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.watcher.demowatcher.constants.FileType;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+@Service
+@Slf4j
+public class FileSettleTracker {
+
+    @Autowired
+    private ProcessingMetrics processingMetrics;
+
+    @Value("${app.watcher.settle.quiet-period-ms:500}")
+    private long quietPeriodMs;
+
+    @Value("${app.watcher.settle.temp-suffixes:.tmp,.part,.crdownload}")
+    private List<String> tempSuffixes;
+
+    private final DelayQueue<PendingFile> pending = new DelayQueue<>();
+    private final Map<Path, PendingFile> tracked = new ConcurrentHashMap<>();
+
+    // Final name -> time its temp file was renamed away (writer did an atomic rename)
+    private final Map<Path, Long> recentRenames = new ConcurrentHashMap<>();
+
+    private Consumer<Path> onSettled;
+    private Thread settleThread;
+    private volatile boolean running = false;
+
+    public synchronized void start(Consumer<Path> onSettled) {
+        if (running) {
+            return;
+        }
+        this.onSettled = onSettled;
+        running = true;
+
+        settleThread = new Thread(this::settleLoop);
+        settleThread.setName("FileSettleThread");
+        settleThread.setDaemon(true);
+        settleThread.start();
+
+        log.info("File settle tracker started (quiet period: {} ms)", quietPeriodMs);
+    }
+
+    public boolean isTempFile(Path path) {
+        String name = path.getFileName().toString();
+        for (String suffix : tempSuffixes) {
+            if (name.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Called from the watcher thread on ENTRY_CREATE, must not block
+    public void track(Path path) {
+        Long renamedAt = recentRenames.remove(path);
+        boolean renamed = renamedAt != null
+                && System.nanoTime() - renamedAt <= TimeUnit.MILLISECONDS.toNanos(quietPeriodMs * 4);
+
+        PendingFile file = new PendingFile(path, renamed);
+        if (renamed) {
+            tracked.put(path, file);
+            pending.add(file);
+        } else if (tracked.putIfAbsent(path, file) == null) {
+            // Paths already waiting keep their existing schedule
+            pending.add(file);
+        }
+    }
+
+    // Called from the watcher thread on ENTRY_DELETE
+    public void forget(Path path) {
+        tracked.remove(path);
+
+        String name = path.getFileName().toString();
+        for (String suffix : tempSuffixes) {
+            if (name.endsWith(suffix)) {
+                Path finalPath = path.resolveSibling(name.substring(0, name.length() - suffix.length()));
+                recentRenames.put(finalPath, System.nanoTime());
+                break;
+            }
+        }
+    }
+
+    public int getPendingCount() {
+        return tracked.size();
+    }
+
+    private void settleLoop() {
+        while (running) {
+            try {
+                PendingFile file = pending.take();
+
+                // Skip entries that were forgotten or superseded since they were queued
+                if (tracked.get(file.path) != file) {
+                    continue;
+                }
+
+                if (file.renamed) {
+                    fire(file);
+                    continue;
+                }
+
+                BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(file.path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (NoSuchFileException e) {
+                    log.debug("File disappeared before it settled: {}", file.path);
+                    tracked.remove(file.path, file);
+                    continue;
+                }
+
+                long size = attrs.size();
+                long modified = attrs.lastModifiedTime().toMillis();
+
+                if (size == file.lastSize && modified == file.lastModified) {
+                    fire(file);
+                } else {
+                    file.lastSize = size;
+                    file.lastModified = modified;
+                    file.reschedule(quietPeriodMs);
+                    pending.add(file);
+                }
+
+                expireRenames();
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (IOException e) {
+                log.error("Error checking file state: {}", e.getMessage(), e);
+            } catch (Exception e) {
+                log.error("Error in settle thread: {}", e.getMessage(), e);
+            }
+        }
+
+        log.info("Settle thread stopped");
+    }
+
+    private void fire(PendingFile file) {
+        if (!tracked.remove(file.path, file)) {
+            return;
+        }
+        log.debug("File settled: {}", file.path);
+        // Detection to settled, mostly the quiet period spent waiting for the writer
+        processingMetrics.recordStage("settle", FileType.fromFileName(file.path.getFileName().toString()),
+                                      ProcessingMetrics.SUCCESS, System.nanoTime() - file.detectedNanos);
+        try {
+            onSettled.accept(file.path);
+        } catch (Exception e) {
+            log.error("Error handling settled file {}: {}", file.path, e.getMessage(), e);
+        }
+    }
+
+    private void expireRenames() {
+        if (recentRenames.isEmpty()) {
+            return;
+        }
+        long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(quietPeriodMs * 4);
+        recentRenames.values().removeIf(renamedAt -> renamedAt < cutoff);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (settleThread != null) {
+            settleThread.interrupt();
+        }
+        pending.clear();
+        tracked.clear();
+    }
+
+    private static final class PendingFile implements Delayed {
+
+        private final Path path;
+        private final boolean renamed;
+        private final long detectedNanos = System.nanoTime();
+        private long lastSize = -1;
+        private long lastModified = -1;
+        private long deadlineNanos;
+
+        private PendingFile(Path path, boolean renamed) {
+            this.path = path;
+            this.renamed = renamed;
+            // First check runs immediately to record the initial size and mtime
+            this.deadlineNanos = System.nanoTime();
+        }
+
+        private void reschedule(long delayMs) {
+            deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(deadlineNanos, ((PendingFile) other).deadlineNanos);
+        }
+    }
+}
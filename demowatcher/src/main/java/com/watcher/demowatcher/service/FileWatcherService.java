@@ -3,21 +3,21 @@ package com.watcher.demowatcher.service;
 import java.io.IOException;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardWatchEventKinds;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import com.watcher.demowatcher.constants.FileType;
-import com.watcher.demowatcher.constants.ProcessingStatus;
-import com.watcher.demowatcher.model.Document;
-import com.watcher.demowatcher.repository.DocumentRepository;
+import com.watcher.demowatcher.pipeline.FileEventPipeline;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
@@ -30,13 +30,22 @@ import lombok.extern.slf4j.Slf4j;
 public class FileWatcherService {
 	
 	@Autowired
-	private DocumentRepository documentRepository;
+	private FileEventPipeline fileEventPipeline;
 	
 	@Autowired
-    private  DocumentProcessorService documentProcessorService;
+	private FileSettleTracker fileSettleTracker;
 	
-	  @Value("${app.upload.dir}")
-	    private String watchDirectory;
+	@Autowired
+	private DirectoryRegistrar directoryRegistrar;
+	
+	@Autowired
+	private DirectoryReconciler directoryReconciler;
+	
+	@Autowired
+	private StartupReconciler startupReconciler;
+	
+	  @Value("${app.watcher.roots:${app.upload.dir}}")
+	    private List<String> watchRoots;
 	    
 	    private WatchService watchService;
 	    private Thread watcherThread;
@@ -46,6 +55,9 @@ public class FileWatcherService {
 	    @PostConstruct
 	    public void init() {
 	        log.info("Initializing File Watcher Service...");
+	        fileEventPipeline.start(this::handleEvent);
+	        fileSettleTracker.start(fileEventPipeline::submitSettled);
+	        directoryReconciler.start(fileEventPipeline::publishRescanned);
 	        startWatching();
 	    }
 	    
@@ -55,24 +67,31 @@ public class FileWatcherService {
 	            // Create WatchService
 	            watchService = FileSystems.getDefault().newWatchService();
 	            
-	            // Get the path to watch
-	            Path path = Paths.get(watchDirectory);
-	            
-	            // Create directory if it doesn't exist
-	            if (!Files.exists(path)) {
-	                Files.createDirectories(path);
-	                log.info("Created watch directory: {}", path);
+	            // Get the paths to watch
+	            List<Path> roots = new ArrayList<>();
+	            for (String root : watchRoots) {
+	                Path path = Paths.get(root);
+	                
+	                // Create directory if it doesn't exist
+	                if (!Files.exists(path)) {
+	                    Files.createDirectories(path);
+	                    log.info("Created watch directory: {}", path);
+	                }
+	                roots.add(path);
 	            }
 	            
-	            // Register the directory with WatchService for specific events
-	            path.register(
-	                watchService,
-	                StandardWatchEventKinds.ENTRY_CREATE,
-	                StandardWatchEventKinds.ENTRY_MODIFY,
-	                StandardWatchEventKinds.ENTRY_DELETE
-	            );
+	            // Register every directory under the roots; keys map back to their
+	            // directory through WatchKey.watchable(), so no path map is kept.
+	            // Each directory is registered before it is listed, so files that arrived
+	            // while the service was down go to the startup reconciler without a gap
+	            long start = System.nanoTime();
+	            startupReconciler.start();
+	            directoryRegistrar.registerTrees(watchService, roots, startupReconciler::offerExisting);
+	            startupReconciler.scanComplete();
+	            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
 	            
-	            log.info("Started watching directory: {}", path.toAbsolutePath());
+	            log.info("Started watching {} directories under {} roots in {} ms: {}", 
+	                     directoryRegistrar.getRegisteredCount(), roots.size(), elapsedMs, roots);
 	            
 	            running = true;
 	            
@@ -97,13 +116,16 @@ public class FileWatcherService {
 	                // Wait for events (blocking call)
 	                WatchKey key = watchService.take();
 	                
+	                Path dir = (Path) key.watchable();
+	                
 	                // Process all events
 	                for (WatchEvent<?> event : key.pollEvents()) {
 	                    WatchEvent.Kind<?> kind = event.kind();
 	                    
-	                    // Handle overflow
+	                    // Handle overflow - events were lost, reconcile the directory against its snapshot
 	                    if (kind == StandardWatchEventKinds.OVERFLOW) {
-	                        log.warn("Event overflow occurred");
+	                        log.warn("Event overflow occurred, rescanning {}", dir);
+	                        directoryReconciler.requestRescan(dir);
 	                        continue;
 	                    }
 	                    
@@ -114,21 +136,21 @@ public class FileWatcherService {
 	                    
 	                    log.info("Event detected: {} - {}", kind.name(), filename);
 	                    
-	                    // Handle different event types
-	                    if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
-	                        handleFileCreated(filename);
-	                    } else if (kind == StandardWatchEventKinds.ENTRY_MODIFY) {
-	                        handleFileModified(filename);
-	                    } else if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
-	                        handleFileDeleted(filename);
-	                    }
+	                    // Hand off to the event pipeline, the watcher thread only detects
+	                    fileEventPipeline.publish(kind, dir.resolve(filename));
 	                }
 	                
 	                // Reset the key - important!
 	                boolean valid = key.reset();
 	                if (!valid) {
-	                    log.error("WatchKey is no longer valid, stopping watcher");
-	                    break;
+	                    // Directory was deleted or moved away
+	                    log.debug("Stopped watching directory: {}", dir);
+	                    directoryReconciler.forgetDirectory(dir);
+	                    directoryRegistrar.unregistered();
+	                    if (directoryRegistrar.getRegisteredCount() <= 0) {
+	                        log.error("No directories left to watch, stopping watcher");
+	                        break;
+	                    }
 	                }
 	                
 	            } catch (InterruptedException e) {
@@ -144,58 +166,49 @@ public class FileWatcherService {
 	    }
 	    
 	    
-	    private void handleFileCreated(Path filename) {
-	        log.info("New file detected: {}", filename);
+	    // Runs on the pipeline's event thread for watcher and rescan events alike
+	    private void handleEvent(WatchEvent.Kind<?> kind, Path fullPath) {
+	        // Handle different event types
+	        if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
+	            handleFileCreated(fullPath);
+	        } else if (kind == StandardWatchEventKinds.ENTRY_MODIFY) {
+	            handleFileModified(fullPath);
+	        } else if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
+	            handleFileDeleted(fullPath);
+	        }
+	    }
+	    
+	    private void handleFileCreated(Path fullPath) {
+	        boolean directory = Files.isDirectory(fullPath, LinkOption.NOFOLLOW_LINKS);
+	        directoryReconciler.recordCreated(fullPath, directory);
 	        
-	        try {
-	            // Small delay to ensure file is fully written
-	            Thread.sleep(500);
-	            
-	            // Get full file path
-	            Path fullPath = Paths.get(watchDirectory, filename.toString());
-	            
-	            // Check if file still exists and is readable
-	            if (!Files.exists(fullPath) || !Files.isReadable(fullPath)) {
-	                log.warn("File not readable or doesn't exist: {}", filename);
-	                return;
-	            }
-	            
-	            // Get file info
-	            String originalName = filename.toString();
-	            long fileSize = Files.size(fullPath);
-	            FileType fileType = FileType.fromFileName(originalName);
-	            
-	            log.info("Processing new file: {} (Type: {}, Size: {} bytes)", 
-	                     originalName, fileType, fileSize);
-	            
-	            // Create document record
-	            Document document = new Document();
-	            document.setFileName(originalName);
-	            document.setOriginalName(originalName);
-	            document.setFileType(fileType);
-	            document.setFileSize(fileSize);
-	            document.setFilePath(fullPath.toString());
-	            document.setProcessingStatus(ProcessingStatus.PENDING);
-	            
-	            // Save to database
-	            Document savedDocument = documentRepository.save(document);
-	            log.info("Document record created with ID: {}", savedDocument.getId());
-	            
-	            // Process the file asynchronously
-	            documentProcessorService.processDocument(savedDocument.getId());
-	            
-	        } catch (Exception e) {
-	            log.error("Error handling file creation for {}: {}", filename, e.getMessage(), e);
+	        if (directory) {
+	            log.info("New directory detected: {}", fullPath);
+	            directoryRegistrar.registerTreeAsync(watchService, fullPath, 
+	                    path -> fileEventPipeline.publish(StandardWatchEventKinds.ENTRY_CREATE, path));
+	            return;
 	        }
+	        
+	        if (fileSettleTracker.isTempFile(fullPath)) {
+	            log.debug("Ignoring temporary file: {}", fullPath.getFileName());
+	            return;
+	        }
+	        
+	        log.info("New file detected: {}", fullPath.getFileName());
+	        
+	        // Hand off to the settle tracker; the file is registered once it stops changing
+	        fileSettleTracker.track(fullPath);
 	    }
 	    
-	    private void handleFileModified(Path filename) {
-	        log.debug("File modified: {}", filename);
+	    private void handleFileModified(Path fullPath) {
+	        log.debug("File modified: {}", fullPath.getFileName());
 	        // Can implement logic to reprocess modified files if needed
 	    }
 	    
-	    private void handleFileDeleted(Path filename) {
-	        log.info("File deleted: {}", filename);
+	    private void handleFileDeleted(Path fullPath) {
+	        log.info("File deleted: {}", fullPath.getFileName());
+	        fileSettleTracker.forget(fullPath);
+	        directoryReconciler.recordDeleted(fullPath);
 	        // Can implement logic to update database when files are manually deleted
 	    }
 	    
@@ -6,8 +6,12 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Iterator;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -24,73 +28,99 @@ public class ImageProcessorService {
 	 @Value("${app.processed.dir}")
 	    private String processedDir;
 
+	    @Value("${app.image.thumbnail.size:200}")
+	    private int thumbnailSize;
+
+	    // Dimensions come from the image header and the thumbnail from one decode, read with
+	    // source subsampling so only about twice the thumbnail's pixels are ever in memory
 	    public String processImage(Document document) {
 	        try {
 	            File imageFile = Paths.get(document.getFilePath()).toFile();
-	            
-	            // Read the image
-	            BufferedImage image = ImageIO.read(imageFile);
-	            
-	            if (image == null) {
-	                throw new RuntimeException("Unable to read image file");
+
+	            try (ImageInputStream input = ImageIO.createImageInputStream(imageFile)) {
+	                Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+	                if (readers == null || !readers.hasNext()) {
+	                    throw new RuntimeException("Unable to read image file");
+	                }
+
+	                ImageReader reader = readers.next();
+	                try {
+	                    reader.setInput(input, true, true);
+
+	                    // Get image properties
+	                    int width = reader.getWidth(0);
+	                    int height = reader.getHeight(0);
+	                    String format = getImageFormat(document.getFileName());
+
+	                    log.info("Image properties - Width: {}, Height: {}, Format: {}", width, height, format);
+
+	                    // Generate thumbnail
+	                    String thumbnailPath = generateThumbnail(reader, width, height, document.getFileName());
+
+	                    // Calculate aspect ratio
+	                    double aspectRatio = (double) width / height;
+
+	                    String metadata = String.format(
+	                        "Image processed successfully. Width: %d, Height: %d, Format: %s, Aspect Ratio: %.2f, Thumbnail: %s",
+	                        width, height, format, aspectRatio, thumbnailPath
+	                    );
+
+	                    log.info("Image processing complete: {}x{} {}", width, height, format);
+
+	                    return metadata;
+	                } finally {
+	                    reader.dispose();
+	                }
 	            }
-	            
-	            // Get image properties
-	            int width = image.getWidth();
-	            int height = image.getHeight();
-	            String format = getImageFormat(document.getFileName());
-	            
-	            log.info("Image properties - Width: {}, Height: {}, Format: {}", width, height, format);
-	            
-	            // Generate thumbnail
-	            String thumbnailPath = generateThumbnail(imageFile, document.getFileName());
-	            
-	            // Calculate aspect ratio
-	            double aspectRatio = (double) width / height;
-	            
-	            String metadata = String.format(
-	                "Image processed successfully. Width: %d, Height: %d, Format: %s, Aspect Ratio: %.2f, Thumbnail: %s",
-	                width, height, format, aspectRatio, thumbnailPath
-	            );
-	            
-	            log.info("Image processing complete: {}x{} {}", width, height, format);
-	            
-	            return metadata;
-	            
+
 	        } catch (Exception e) {
 	            log.error("Error processing image: {}", e.getMessage(), e);
 	            throw new RuntimeException("Image processing failed: " + e.getMessage(), e);
 	        }
 	    }
-	    
-	    private String generateThumbnail(File originalImage, String originalFileName) {
+
+	    private String generateThumbnail(ImageReader reader, int width, int height, String originalFileName) {
 	        try {
 	            // Create thumbnails directory
 	            Path thumbnailDir = Paths.get(processedDir, "thumbnails");
 	            if (!Files.exists(thumbnailDir)) {
 	                Files.createDirectories(thumbnailDir);
 	            }
-	            
+
 	            // Generate thumbnail filename
 	            String thumbnailFileName = "thumb_" + originalFileName;
 	            Path thumbnailPath = thumbnailDir.resolve(thumbnailFileName);
-	            
-	            // Create thumbnail (200x200 max size, maintain aspect ratio)
-	            Thumbnails.of(originalImage)
-	                    .size(200, 200)
+
+	            // Skip source pixels so the decoded image is still at least twice the thumbnail size
+	            ImageReadParam param = reader.getDefaultReadParam();
+	            int subsampling = subsamplingFor(width, height);
+	            if (subsampling > 1) {
+	                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+	            }
+	            BufferedImage decoded = reader.read(0, param);
+
+	            // Create thumbnail (max size, maintain aspect ratio)
+	            Thumbnails.of(decoded)
+	                    .size(thumbnailSize, thumbnailSize)
 	                    .keepAspectRatio(true)
+	                    .outputFormat(reader.getFormatName())
 	                    .toFile(thumbnailPath.toFile());
-	            
-	            log.info("Thumbnail created: {}", thumbnailPath);
-	            
+
+	            log.info("Thumbnail created: {} (decoded at 1/{})", thumbnailPath, subsampling);
+
 	            return thumbnailPath.toString();
-	            
+
 	        } catch (IOException e) {
 	            log.error("Error creating thumbnail: {}", e.getMessage(), e);
 	            return "Thumbnail creation failed";
 	        }
 	    }
-	    
+
+	    private int subsamplingFor(int width, int height) {
+	        int longestSide = Math.max(width, height);
+	        return Math.max(1, longestSide / (thumbnailSize * 2));
+	    }
+
 	    private String getImageFormat(String fileName) {
 	        int lastDot = fileName.lastIndexOf('.');
 	        if (lastDot == -1) {
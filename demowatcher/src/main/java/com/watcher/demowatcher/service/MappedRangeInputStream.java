@@ -0,0 +1,59 @@
+package com.watcher.demowatcher.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+// Reads [start, end) of a file through memory-mapped windows, so a range of
+// any size can be read without copying it through the channel's position
+final class MappedRangeInputStream extends InputStream {
+
+    static final int WINDOW_SIZE = 1 << 26;
+
+    private final FileChannel channel;
+    private final long end;
+    private long windowStart;
+    private MappedByteBuffer window;
+
+    MappedRangeInputStream(FileChannel channel, long start, long end) {
+        this.channel = channel;
+        this.end = end;
+        this.windowStart = start;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureWindow()) {
+            return -1;
+        }
+        return window.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureWindow()) {
+            return -1;
+        }
+        int n = Math.min(len, window.remaining());
+        window.get(b, off, n);
+        return n;
+    }
+
+    private boolean ensureWindow() throws IOException {
+        if (window != null && window.hasRemaining()) {
+            return true;
+        }
+        if (window != null) {
+            windowStart += window.capacity();
+        }
+        if (windowStart >= end) {
+            return false;
+        }
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(WINDOW_SIZE, end - windowStart));
+        return true;
+    }
+}
@@ -0,0 +1,144 @@
+package com.watcher.demowatcher.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.watcher.demowatcher.constants.FileType;
+import com.watcher.demowatcher.constants.ProcessingStatus;
+import com.watcher.demowatcher.pipeline.FileEventPipeline;
+import com.watcher.demowatcher.pipeline.LatencyHistogram;
+import com.watcher.demowatcher.pipeline.StageMetrics;
+
+import lombok.RequiredArgsConstructor;
+
+// Renders the stage timers, queue gauges and document counts in the Prometheus
+// text format, and decides whether the system is healthy
+@Service
+@RequiredArgsConstructor
+public class MetricsExporter {
+
+    private static final String PREFIX = "filewatcher_";
+
+    private final ProcessingMetrics processingMetrics;
+    private final FileEventPipeline fileEventPipeline;
+    private final DocumentDispatcher documentDispatcher;
+    private final FileSettleTracker fileSettleTracker;
+    private final FileWatcherService fileWatcherService;
+    private final DocumentStatistics documentStatistics;
+
+    @Value("${app.health.max-queue-lag-ms:60000}")
+    private long maxQueueLagMs;
+
+    public String scrape() {
+        StringBuilder out = new StringBuilder(16 * 1024);
+
+        out.append("# HELP ").append(PREFIX).append("stage_seconds Time spent in each stage per document or batch\n");
+        out.append("# TYPE ").append(PREFIX).append("stage_seconds histogram\n");
+        for (Map.Entry<ProcessingMetrics.TimerKey, LatencyHistogram> entry : processingMetrics.getTimers().entrySet()) {
+            ProcessingMetrics.TimerKey key = entry.getKey();
+            String labels = "stage=\"" + key.stage() + "\",file_type=\"" + key.fileType()
+                          + "\",outcome=\"" + key.outcome() + "\"";
+            LatencyHistogram histogram = entry.getValue();
+            long[] cumulative = histogram.getCumulativeCounts();
+            for (int i = 0; i < LatencyHistogram.BUCKET_SECONDS.length; i++) {
+                sample(out, "stage_seconds_bucket", labels + ",le=\"" + LatencyHistogram.BUCKET_SECONDS[i] + "\"",
+                       cumulative[i]);
+            }
+            sample(out, "stage_seconds_bucket", labels + ",le=\"+Inf\"", cumulative[cumulative.length - 1]);
+            sample(out, "stage_seconds_sum", labels, histogram.getTotalSeconds());
+            sample(out, "stage_seconds_count", labels, histogram.getCount());
+        }
+
+        out.append("# TYPE ").append(PREFIX).append("processed_bytes_total counter\n");
+        processingMetrics.getProcessedBytes().forEach((fileType, bytes) ->
+                sample(out, "processed_bytes_total", "file_type=\"" + fileType + "\"", bytes.sum()));
+
+        out.append("# TYPE ").append(PREFIX).append("documents_in_flight gauge\n");
+        sample(out, "documents_in_flight", null, processingMetrics.getInFlight());
+
+        out.append("# TYPE ").append(PREFIX).append("settle_pending gauge\n");
+        sample(out, "settle_pending", null, fileSettleTracker.getPendingCount());
+
+        out.append("# TYPE ").append(PREFIX).append("watcher_up gauge\n");
+        sample(out, "watcher_up", null, fileWatcherService.isRunning() ? 1 : 0);
+
+        // Queue depth, latency and drop counts of the pipeline stages and the per-type executors
+        appendSnapshots(out, "pipeline_", "stage", fileEventPipeline.getStageMetrics());
+        appendSnapshots(out, "executor_", "executor", documentDispatcher.getExecutorMetrics());
+
+        out.append("# TYPE ").append(PREFIX).append("documents gauge\n");
+        for (ProcessingStatus status : ProcessingStatus.values()) {
+            for (FileType fileType : FileType.values()) {
+                sample(out, "documents", "status=\"" + status + "\",file_type=\"" + fileType + "\"",
+                       documentStatistics.getCount(status, fileType));
+            }
+        }
+        return out.toString();
+    }
+
+    public Map<String, Object> health() {
+        boolean watcherRunning = fileWatcherService.isRunning();
+        double queueLagMs = 0;
+        for (StageMetrics stage : fileEventPipeline.getStages()) {
+            queueLagMs = Math.max(queueLagMs, stage.getLagMs());
+        }
+        boolean up = watcherRunning && fileEventPipeline.isRunning() && queueLagMs <= maxQueueLagMs;
+
+        Map<String, Object> health = new LinkedHashMap<>();
+        health.put("status", up ? "UP" : "DOWN");
+        health.put("watcherRunning", watcherRunning);
+        health.put("pipelineRunning", fileEventPipeline.isRunning());
+        health.put("queueLagMs", queueLagMs);
+        health.put("maxQueueLagMs", maxQueueLagMs);
+        health.put("settlePending", fileSettleTracker.getPendingCount());
+        health.put("executorQueued", documentDispatcher.getQueuedCount());
+        health.put("documentsInFlight", processingMetrics.getInFlight());
+        return health;
+    }
+
+    private void appendSnapshots(StringBuilder out, String group, String label,
+                                 Map<String, Map<String, Object>> snapshots) {
+        Map<String, StringBuilder> families = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Object>> snapshot : snapshots.entrySet()) {
+            for (Map.Entry<String, Object> value : snapshot.getValue().entrySet()) {
+                if (value.getValue() instanceof Number number) {
+                    StringBuilder family = families.computeIfAbsent(group + toSnakeCase(value.getKey()),
+                                                                    name -> new StringBuilder());
+                    sample(family, group + toSnakeCase(value.getKey()),
+                           label + "=\"" + snapshot.getKey() + "\"", number.doubleValue());
+                }
+            }
+        }
+        families.forEach((name, samples) ->
+                out.append("# TYPE ").append(PREFIX).append(name).append(" gauge\n").append(samples));
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(PREFIX).append(name);
+        if (labels != null) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    private static String toSnakeCase(String name) {
+        StringBuilder snake = new StringBuilder(name.length() + 4);
+        for (char c : name.toCharArray()) {
+            if (Character.isUpperCase(c)) {
+                snake.append('_').append(Character.toLowerCase(c));
+            } else {
+                snake.append(c);
+            }
+        }
+        return snake.toString();
+    }
+}
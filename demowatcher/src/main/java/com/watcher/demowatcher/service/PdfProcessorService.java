@@ -1,44 +1,87 @@
 package com.watcher.demowatcher.service;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.watcher.demowatcher.model.Document;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 
+// Text is extracted page range by page range straight into a counting writer
+// that also feeds the text store. PDDocument is not thread safe, so every range
+// loads its own copy, with streams cached in temp files rather than on the heap.
 @Service
 @Slf4j
 public class PdfProcessorService {
-	
+
+	@Autowired
+	private ExtractedTextStore extractedTextStore;
+
+	@Value("${app.pdf.min-pages-per-range:50}")
+	private int minPagesPerRange;
+
+	@Value("${app.pdf.parallel.threads:0}")
+	private int parallelThreads;
+
+	private int threads;
+	private ForkJoinPool extractionPool;
+
+	@PostConstruct
+	public void init() {
+		threads = parallelThreads > 0 ? parallelThreads : Runtime.getRuntime().availableProcessors();
+		extractionPool = new ForkJoinPool(threads);
+	}
+
 	public String processPdf(Document document)
 	{
 		try {
 			File pdfFile =Paths.get(document.getFilePath()).toFile();
-			PDDocument pdDocument=Loader.loadPDF(pdfFile);
-			
-			int pageCount=pdDocument.getNumberOfPages();
-			
-			 PDFTextStripper stripper =new PDFTextStripper();
-	            String text = stripper.getText(pdDocument);
-	            
-	            int wordCount = text.split("\\s+").length;
-	            int charCount = text.length();
-	            
-	            pdDocument.close();
-	            
-	            String metadata = String.format("PDF processed successfully. Pages: %d, Words: %d, Characters: %d", 
-	                                           pageCount, wordCount, charCount);
-	            
-	            log.info("PDF processing complete: {} pages, {} words", pageCount, wordCount);
-	            
-	            // You can also save the extracted text to a file or database if needed
-	            
+			String sha256 = document.getContentHash() != null
+					? document.getContentHash() : DocumentDeduplicator.sha256(pdfFile.toPath());
+			// Owned here until the first extraction task takes it, closed below if no task ever does
+			AtomicReference<PDDocument> loaded = new AtomicReference<>(load(pdfFile));
+
+			int pageCount;
+			WordCountingWriter counts;
+			try {
+				pageCount=loaded.get().getNumberOfPages();
+				if (extractedTextStore.contains(sha256)) {
+					// Already extracted once, count from the stored text instead of parsing pages again
+					closeUnclaimed(loaded);
+					counts = countStoredText(sha256);
+					log.info("Using stored text for {}", sha256);
+				} else {
+					counts = extractAndStore(pdfFile, loaded, pageCount, sha256);
+				}
+			} finally {
+				closeUnclaimed(loaded);
+			}
+
+	            String metadata = String.format("PDF processed successfully. Pages: %d, Words: %d, Characters: %d",
+	                                           pageCount, counts.getWordCount(), counts.getCharCount());
+
+	            log.info("PDF processing complete: {} pages, {} words", pageCount, counts.getWordCount());
+
 	            return metadata;
 		}
 		catch (Exception e) {
@@ -46,4 +89,96 @@ public class PdfProcessorService {
 	            throw new RuntimeException("PDF processing failed: " + e.getMessage(), e);
 		}
 	}
+
+	// Each range writes its own compressed part of the text store entry while it is counted
+	private WordCountingWriter extractAndStore(File pdfFile, AtomicReference<PDDocument> loaded, int pageCount, String sha256)
+			throws Exception {
+		// Every extra load re-parses fonts and resources, so split into at most one range per thread
+		int pagesPerRange = Math.max(minPagesPerRange, (pageCount + threads - 1) / threads);
+		ExtractedTextStore.Pending pending = extractedTextStore.begin(sha256);
+
+		// The first range reuses the document loaded to count pages
+		List<Callable<WordCountingWriter>> tasks = new ArrayList<>();
+		tasks.add(() -> {
+			PDDocument claimed = loaded.getAndSet(null);
+			try (PDDocument first = claimed != null ? claimed : load(pdfFile); Writer part = pending.openPart(0)) {
+				return extract(first, 1, Math.min(pageCount, pagesPerRange), part);
+			}
+		});
+		int index = 1;
+		for (int startPage = pagesPerRange + 1; startPage <= pageCount; startPage += pagesPerRange) {
+			int start = startPage;
+			int end = Math.min(pageCount, startPage + pagesPerRange - 1);
+			int partIndex = index++;
+			tasks.add(() -> {
+				try (PDDocument range = load(pdfFile); Writer part = pending.openPart(partIndex)) {
+					return extract(range, start, end, part);
+				}
+			});
+		}
+
+		WordCountingWriter total = new WordCountingWriter();
+		try {
+			for (Future<WordCountingWriter> result : extractionPool.invokeAll(tasks)) {
+				total.add(join(result));
+			}
+		} catch (Exception e) {
+			pending.abort();
+			throw e;
+		}
+
+		// The counts are already known, losing the stored copy only costs a later re-extraction
+		try {
+			pending.commit();
+		} catch (IOException e) {
+			log.warn("Could not store extracted text for {}: {}", sha256, e.getMessage());
+		}
+		log.debug("Extracted {} pages in {} ranges", pageCount, tasks.size());
+		return total;
+	}
+
+	private static void closeUnclaimed(AtomicReference<PDDocument> loaded) throws IOException {
+		PDDocument unclaimed = loaded.getAndSet(null);
+		if (unclaimed != null) {
+			unclaimed.close();
+		}
+	}
+
+	private WordCountingWriter countStoredText(String sha256) throws IOException {
+		try (Reader text = extractedTextStore.open(sha256)) {
+			WordCountingWriter counts = new WordCountingWriter();
+			text.transferTo(counts);
+			return counts;
+		}
+	}
+
+	private static PDDocument load(File pdfFile) throws IOException {
+		return Loader.loadPDF(pdfFile, IOUtils.createTempFileOnlyStreamCache());
+	}
+
+	private static WordCountingWriter extract(PDDocument pdDocument, int startPage, int endPage, Writer out)
+			throws IOException {
+		PDFTextStripper stripper = new PDFTextStripper();
+		stripper.setStartPage(startPage);
+		stripper.setEndPage(endPage);
+		WordCountingWriter counts = new WordCountingWriter(out);
+		stripper.writeText(pdDocument, counts);
+		counts.flush();
+		return counts;
+	}
+
+	private static WordCountingWriter join(Future<WordCountingWriter> result) throws Exception {
+		try {
+			return result.get();
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof Exception cause ? cause : e;
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		if (extractionPool != null) {
+			extractionPool.shutdownNow();
+		}
+	}
 }
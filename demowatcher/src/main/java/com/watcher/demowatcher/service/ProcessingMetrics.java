@@ -0,0 +1,66 @@
+package com.watcher.demowatcher.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Service;
+
+import com.watcher.demowatcher.constants.FileType;
+import com.watcher.demowatcher.pipeline.LatencyHistogram;
+
+// Per-stage timings for a document's way through the system: settle, persist,
+// hash, parse, move and the whole processing run. Tagged by file type and outcome.
+// Holds no references to the services it measures, MetricsExporter reads it.
+@Service
+public class ProcessingMetrics {
+
+    public static final String SUCCESS = "success";
+    public static final String FAILURE = "failure";
+    public static final String DUPLICATE = "duplicate";
+    public static final String LEASE_LOST = "lease_lost";
+
+    // Batches mix file types
+    public static final String ALL_TYPES = "ALL";
+
+    public record TimerKey(String stage, String fileType, String outcome) {
+    }
+
+    private final Map<TimerKey, LatencyHistogram> timers = new ConcurrentHashMap<>();
+    private final Map<FileType, LongAdder> processedBytes = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public void recordStage(String stage, FileType fileType, String outcome, long nanos) {
+        recordStage(stage, fileType.name(), outcome, nanos);
+    }
+
+    public void recordStage(String stage, String fileType, String outcome, long nanos) {
+        timers.computeIfAbsent(new TimerKey(stage, fileType, outcome), key -> new LatencyHistogram()).record(nanos);
+    }
+
+    // Bytes read by a type's processor, rate() over this gives bytes/sec per processor
+    public void recordProcessedBytes(FileType fileType, long bytes) {
+        processedBytes.computeIfAbsent(fileType, type -> new LongAdder()).add(bytes);
+    }
+
+    public void documentStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    public void documentFinished() {
+        inFlight.decrementAndGet();
+    }
+
+    public Map<TimerKey, LatencyHistogram> getTimers() {
+        return timers;
+    }
+
+    public Map<FileType, LongAdder> getProcessedBytes() {
+        return processedBytes;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
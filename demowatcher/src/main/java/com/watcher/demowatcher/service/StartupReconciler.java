@@ -0,0 +1,187 @@
+package com.watcher.demowatcher.service;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.watcher.demowatcher.constants.ProcessingStatus;
+import com.watcher.demowatcher.model.Document;
+import com.watcher.demowatcher.repository.DocumentRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+// Catches up on what happened while the service was down. Files found while the
+// watch directories are being registered (so watching has already begun) are
+// diffed against the database in batches of one IN query each, and the ones with
+// no record go to the settle tracker like any new file. Rows left PENDING or
+// PROCESSING by the previous run are dispatched again on a thread of their own,
+// since dispatch waits whenever a type's queue is full and the diff must not wait
+// behind it. When the nodes lease their work those rows are claimed once their
+// leases expire instead.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StartupReconciler {
+
+    private static final Path END_OF_SCAN = Paths.get("");
+    private static final List<ProcessingStatus> UNFINISHED =
+            List.of(ProcessingStatus.PENDING, ProcessingStatus.PROCESSING);
+
+    private final DocumentRepository documentRepository;
+    private final DocumentDispatcher documentDispatcher;
+    private final DocumentClaimer documentClaimer;
+    private final FileSettleTracker fileSettleTracker;
+
+    @Value("${app.startup.reconcile.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.startup.reconcile.batch-size:1000}")
+    private int batchSize;
+
+    private final BlockingQueue<Path> existingFiles = new LinkedBlockingQueue<>();
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private Thread reconcileThread;
+    private Thread redispatchThread;
+
+    // Called before the directories are registered, existing files stream in while they are listed
+    public synchronized void start() {
+        if (!enabled || reconcileThread != null) {
+            return;
+        }
+        reconcileThread = new Thread(this::reconcile);
+        reconcileThread.setName("StartupReconcileThread");
+        reconcileThread.setDaemon(true);
+        reconcileThread.start();
+
+        if (!documentClaimer.isEnabled()) {
+            redispatchThread = new Thread(this::redispatch);
+            redispatchThread.setName("StartupRedispatchThread");
+            redispatchThread.setDaemon(true);
+            redispatchThread.start();
+        }
+    }
+
+    // Called from the registration threads for every file already in a watched directory
+    public void offerExisting(Path path) {
+        if (enabled && !fileSettleTracker.isTempFile(path)) {
+            existingFiles.add(path);
+        }
+    }
+
+    // Called once the whole tree is registered and listed
+    public void scanComplete() {
+        if (enabled) {
+            existingFiles.add(END_OF_SCAN);
+        }
+    }
+
+    private void reconcile() {
+        long start = System.nanoTime();
+        try {
+            int missing = enqueueUnregistered();
+            log.info("Startup reconciliation finished in {} ms: {} unregistered files queued",
+                     (System.nanoTime() - start) / 1_000_000, missing);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Startup reconciliation failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void redispatch() {
+        long start = System.nanoTime();
+        try {
+            int redispatched = redispatchUnfinished();
+            log.info("Startup redispatch finished in {} ms: {} unfinished documents dispatched again",
+                     (System.nanoTime() - start) / 1_000_000, redispatched);
+        } catch (Exception e) {
+            log.error("Startup redispatch failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private int enqueueUnregistered() throws InterruptedException {
+        int missing = 0;
+        List<Path> batch = new ArrayList<>(batchSize);
+        while (true) {
+            Path path = existingFiles.poll(1, TimeUnit.SECONDS);
+            if (path == null) {
+                continue;
+            }
+            if (path != END_OF_SCAN) {
+                batch.add(path);
+                existingFiles.drainTo(batch, batchSize - batch.size());
+            }
+            boolean done = batch.remove(END_OF_SCAN) || path == END_OF_SCAN;
+
+            if (batch.size() >= batchSize || (done && !batch.isEmpty())) {
+                missing += enqueueMissing(batch);
+                batch.clear();
+            }
+            if (done) {
+                return missing;
+            }
+        }
+    }
+
+    // One IN query for the whole batch, served by the file path index
+    private int enqueueMissing(List<Path> batch) {
+        List<String> filePaths = new ArrayList<>(batch.size());
+        for (Path path : batch) {
+            filePaths.add(path.toString());
+        }
+        Set<String> registered = new HashSet<>(documentRepository.findExistingFilePaths(filePaths));
+
+        int missing = 0;
+        for (Path path : batch) {
+            if (!registered.contains(path.toString())) {
+                fileSettleTracker.track(path);
+                missing++;
+            }
+        }
+        return missing;
+    }
+
+    // Only rows from before this start, anything newer belongs to the running pipeline
+    private int redispatchUnfinished() {
+        int redispatched = 0;
+        long afterId = 0;
+        while (true) {
+            List<Document> page = documentRepository.findUnfinishedAfter(
+                    UNFINISHED, startedAt, afterId, PageRequest.of(0, batchSize));
+            for (Document document : page) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return redispatched;
+                }
+                documentDispatcher.dispatchResumed(document);
+                redispatched++;
+            }
+            if (page.size() < batchSize) {
+                return redispatched;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (reconcileThread != null) {
+            reconcileThread.interrupt();
+        }
+        if (redispatchThread != null) {
+            redispatchThread.interrupt();
+        }
+    }
+}
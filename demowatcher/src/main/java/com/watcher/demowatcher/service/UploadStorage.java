@@ -0,0 +1,68 @@
+package com.watcher.demowatcher.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Writes uploaded bytes to disk once, hashing and counting them on the way.
+// Data goes to a ".part" file next to the target, which the watcher ignores
+// as a temp file. The caller publishes it under the target name once the
+// document record exists, so the watcher never sees a file without one.
+@Service
+@Slf4j
+public class UploadStorage {
+
+    static final int BUFFER_SIZE = 1 << 16;
+    static final String PART_SUFFIX = ".part";
+
+    public record StoredUpload(Path path, long size, String contentHash) {
+    }
+
+    // The returned path is the ".part" file
+    public StoredUpload store(InputStream body, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path part = target.resolveSibling(target.getFileName() + PART_SUFFIX);
+
+        MessageDigest digest = DocumentDeduplicator.newDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long size = 0;
+
+        try (FileChannel channel = FileChannel.open(part,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            int read;
+            while ((read = body.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                while (chunk.hasRemaining()) {
+                    channel.write(chunk);
+                }
+                size += read;
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(part);
+            throw e;
+        }
+
+        log.debug("Stored upload {} ({} bytes)", part, size);
+        return new StoredUpload(part, size, DocumentDeduplicator.toHex(digest));
+    }
+
+    public void publish(StoredUpload stored, Path target) throws IOException {
+        Files.move(stored.path(), target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // No-op once the upload was published
+    public void discard(StoredUpload stored) throws IOException {
+        Files.deleteIfExists(stored.path());
+    }
+}
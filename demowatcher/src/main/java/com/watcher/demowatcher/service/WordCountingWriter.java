@@ -0,0 +1,80 @@
+package com.watcher.demowatcher.service;
+
+import java.io.IOException;
+import java.io.Writer;
+
+// Counts characters and whitespace-separated words as text is written, so
+// extracted text never has to be held in memory or split to be counted.
+// Text is passed on to the delegate unchanged.
+final class WordCountingWriter extends Writer {
+
+    private final Writer delegate;
+    private long charCount;
+    private long wordCount;
+    private boolean inWord;
+
+    WordCountingWriter() {
+        this(Writer.nullWriter());
+    }
+
+    WordCountingWriter(Writer delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        delegate.write(cbuf, off, len);
+        charCount += len;
+        for (int i = off; i < off + len; i++) {
+            if (Character.isWhitespace(cbuf[i])) {
+                inWord = false;
+            } else if (!inWord) {
+                inWord = true;
+                wordCount++;
+            }
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        delegate.write(str, off, len);
+        charCount += len;
+        for (int i = off; i < off + len; i++) {
+            if (Character.isWhitespace(str.charAt(i))) {
+                inWord = false;
+            } else if (!inWord) {
+                inWord = true;
+                wordCount++;
+            }
+        }
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        write(String.valueOf((char) c), 0, 1);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        delegate.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    // Adds the counts of text written elsewhere, for totals over several writers
+    void add(WordCountingWriter other) {
+        charCount += other.charCount;
+        wordCount += other.wordCount;
+    }
+
+    long getCharCount() {
+        return charCount;
+    }
+
+    long getWordCount() {
+        return wordCount;
+    }
+}
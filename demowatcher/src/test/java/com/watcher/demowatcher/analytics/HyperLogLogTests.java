@@ -0,0 +1,70 @@
+package com.watcher.demowatcher.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class HyperLogLogTests {
+
+    // Three standard errors at the default precision (1.04 / sqrt(4096) ~ 1.6%)
+    private static final double TOLERANCE = 0.05;
+
+    @Test
+    void estimatesWithinTheStandardErrorAcrossCardinalities() {
+        for (int cardinality : new int[] { 1_000, 10_000, 100_000, 1_000_000 }) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (int i = 0; i < cardinality; i++) {
+                sketch.add("value-" + i);
+            }
+            assertWithin(cardinality, sketch.estimate());
+        }
+    }
+
+    @Test
+    void smallCardinalitiesAreNearlyExact() {
+        HyperLogLog sketch = new HyperLogLog();
+        assertEquals(0, sketch.estimate());
+        for (int i = 0; i < 100; i++) {
+            sketch.add("value-" + i);
+        }
+        assertTrue(Math.abs(sketch.estimate() - 100) <= 2, "estimate " + sketch.estimate());
+    }
+
+    @Test
+    void repeatedValuesAreCountedOnce() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 5_000; i++) {
+                sketch.add("value-" + i);
+            }
+        }
+        assertWithin(5_000, sketch.estimate());
+    }
+
+    @Test
+    void mergeEstimatesTheUnion() {
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        // 0..59,999 and 40,000..99,999 overlap by 20,000
+        for (int i = 0; i < 60_000; i++) {
+            first.add("value-" + i);
+        }
+        for (int i = 40_000; i < 100_000; i++) {
+            second.add("value-" + i);
+        }
+        first.merge(second);
+        assertWithin(100_000, first.estimate());
+    }
+
+    @Test
+    void refusesToMergeDifferentPrecisions() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(12).merge(new HyperLogLog(10)));
+    }
+
+    private static void assertWithin(long actual, long estimate) {
+        double error = Math.abs(estimate - actual) / (double) actual;
+        assertTrue(error <= TOLERANCE, "estimate " + estimate + " for " + actual + " is off by " + error);
+    }
+}
@@ -0,0 +1,99 @@
+package com.watcher.demowatcher.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TopKCounterTests {
+
+    @Test
+    void findsTheHeavyHittersAmongManySingletons() {
+        Map<String, Long> heavy = heavyHitters();
+        List<String> stream = stream(heavy, 10_000, 42);
+
+        TopKCounter counter = new TopKCounter(100);
+        stream.forEach(counter::add);
+
+        assertHeavyHitters(heavy, counter.top(10), stream.size() / 100);
+    }
+
+    @Test
+    void mergeOfPartialCountersFindsTheSameHeavyHitters() {
+        Map<String, Long> heavy = heavyHitters();
+        List<String> stream = stream(heavy, 10_000, 7);
+
+        // As the parallel CSV profile does, one counter per range merged at the end
+        TopKCounter merged = new TopKCounter(100);
+        int ranges = 4;
+        int rangeSize = (stream.size() + ranges - 1) / ranges;
+        for (int from = 0; from < stream.size(); from += rangeSize) {
+            TopKCounter partial = new TopKCounter(100);
+            stream.subList(from, Math.min(from + rangeSize, stream.size())).forEach(partial::add);
+            merged.merge(partial);
+        }
+
+        assertHeavyHitters(heavy, merged.top(10), stream.size() / 100 * ranges);
+    }
+
+    @Test
+    void reportsNothingWhenEveryValueIsUnique() {
+        TopKCounter counter = new TopKCounter(10);
+        for (int i = 0; i < 1_000; i++) {
+            counter.add("unique-" + i);
+        }
+        assertEquals(Map.of(), counter.top(5));
+    }
+
+    @Test
+    void countsExactlyWhileUnderCapacity() {
+        TopKCounter counter = new TopKCounter(10);
+        for (int i = 0; i < 5; i++) {
+            counter.add("a");
+        }
+        counter.add("b");
+        counter.add("b");
+        counter.add("c");
+        assertEquals(Map.of("a", 5L, "b", 2L), counter.top(5));
+    }
+
+    // Ten values with 2000, 1900, ... 1100 occurrences
+    private static Map<String, Long> heavyHitters() {
+        Map<String, Long> heavy = new LinkedHashMap<>();
+        for (int i = 0; i < 10; i++) {
+            heavy.put("heavy-" + i, 2_000L - i * 100);
+        }
+        return heavy;
+    }
+
+    private static List<String> stream(Map<String, Long> heavy, int singletons, long seed) {
+        List<String> stream = new ArrayList<>();
+        heavy.forEach((value, count) -> {
+            for (long i = 0; i < count; i++) {
+                stream.add(value);
+            }
+        });
+        for (int i = 0; i < singletons; i++) {
+            stream.add("single-" + i);
+        }
+        Collections.shuffle(stream, new Random(seed));
+        return stream;
+    }
+
+    // Space-Saving only overestimates, by at most the number of values seen per counter
+    private static void assertHeavyHitters(Map<String, Long> heavy, Map<String, Long> top, long maxError) {
+        assertEquals(heavy.keySet(), top.keySet());
+        top.forEach((value, count) -> {
+            long actual = heavy.get(value);
+            assertTrue(count >= actual && count <= actual + maxError,
+                       value + " counted " + count + ", actual " + actual);
+        });
+    }
+}
@@ -0,0 +1,121 @@
+package com.watcher.demowatcher.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.jupiter.api.Test;
+
+class RingBufferTests {
+
+    @Test
+    void capacityRoundsUpToPowerOfTwo() {
+        assertEquals(4, new RingBuffer<Integer>(4).capacity());
+        assertEquals(8, new RingBuffer<Integer>(5).capacity());
+        assertEquals(4, new RingBuffer<Integer>(2).capacity());
+    }
+
+    @Test
+    void rejectsWhenFullAndKeepsOrderAcrossWrapAround() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+        int next = 0;
+        int expected = 0;
+        // Uneven offers and polls so head and tail pass the end of the array many times at different offsets
+        for (int round = 0; round < 50; round++) {
+            while (buffer.offer(next)) {
+                next++;
+            }
+            assertEquals(4, buffer.size());
+            assertFalse(buffer.offer(-1));
+
+            for (int i = 0; i < 1 + round % 4; i++) {
+                assertEquals(expected++, buffer.poll());
+            }
+        }
+        while (!buffer.isEmpty()) {
+            assertEquals(expected++, buffer.poll());
+        }
+        assertEquals(next, expected);
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    void drainToStopsAtMaxElements() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(8);
+        for (int i = 0; i < 6; i++) {
+            buffer.offer(i);
+        }
+        List<Integer> sink = new ArrayList<>();
+        assertEquals(4, buffer.drainTo(sink, 4));
+        assertEquals(List.of(0, 1, 2, 3), sink);
+        assertEquals(2, buffer.drainTo(sink, 10));
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void deliversEveryElementExactlyOnceWithManyProducersAndConsumers() throws Exception {
+        int producers = 4;
+        int consumers = 4;
+        int perProducer = 50_000;
+        int total = producers * perProducer;
+        RingBuffer<Integer> buffer = new RingBuffer<>(64);
+        AtomicIntegerArray seen = new AtomicIntegerArray(total);
+        AtomicInteger consumed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(producers + consumers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                int first = p * perProducer;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int value = first; value < first + perProducer; value++) {
+                        while (!buffer.offer(value)) {
+                            Thread.yield();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (int c = 0; c < consumers; c++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    while (consumed.get() < total) {
+                        Integer value = buffer.poll();
+                        if (value == null) {
+                            Thread.yield();
+                            continue;
+                        }
+                        seen.incrementAndGet(value);
+                        consumed.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(total, consumed.get());
+        for (int i = 0; i < total; i++) {
+            assertEquals(1, seen.get(i), "element " + i);
+        }
+        assertTrue(buffer.isEmpty());
+    }
+}
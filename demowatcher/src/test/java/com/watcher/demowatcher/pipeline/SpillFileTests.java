@@ -0,0 +1,75 @@
+package com.watcher.demowatcher.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SpillFileTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysInOrderAndTruncatesOnceDrained() throws Exception {
+        Path file = dir.resolve("spill/events.log");
+        try (SpillFile spill = new SpillFile(file)) {
+            assertTrue(spill.isEmpty());
+            for (int i = 0; i < 5; i++) {
+                spill.append(FileEvent.of(StandardWatchEventKinds.ENTRY_CREATE, dir.resolve("file-" + i + ".csv")));
+            }
+            spill.append(FileEvent.of(StandardWatchEventKinds.ENTRY_DELETE, dir.resolve("gone.csv")));
+            assertFalse(spill.isEmpty());
+
+            List<FileEvent> replayed = new ArrayList<>();
+            assertEquals(4, spill.drain(4, replayed::add));
+            assertTrue(Files.size(file) > 0);
+            assertEquals(2, spill.drain(100, replayed::add));
+
+            assertEquals(6, replayed.size());
+            for (int i = 0; i < 5; i++) {
+                assertEquals(StandardWatchEventKinds.ENTRY_CREATE, replayed.get(i).kind());
+                assertEquals(dir.resolve("file-" + i + ".csv"), replayed.get(i).path());
+            }
+            assertEquals(StandardWatchEventKinds.ENTRY_DELETE, replayed.get(5).kind());
+            assertTrue(spill.isEmpty());
+            assertEquals(0, Files.size(file));
+        }
+    }
+
+    @Test
+    void survivesReopening() throws Exception {
+        Path file = dir.resolve("events.log");
+        try (SpillFile spill = new SpillFile(file)) {
+            spill.append(FileEvent.of(StandardWatchEventKinds.ENTRY_MODIFY, dir.resolve("a b.pdf")));
+        }
+        try (SpillFile spill = new SpillFile(file)) {
+            List<FileEvent> replayed = new ArrayList<>();
+            assertEquals(1, spill.drain(10, replayed::add));
+            assertEquals(StandardWatchEventKinds.ENTRY_MODIFY, replayed.get(0).kind());
+            assertEquals(dir.resolve("a b.pdf"), replayed.get(0).path());
+        }
+    }
+
+    @Test
+    void replayKeepsTheOriginalEventAge() throws Exception {
+        long createdNanos = System.nanoTime() - TimeUnit.SECONDS.toNanos(5);
+        try (SpillFile spill = new SpillFile(dir.resolve("events.log"))) {
+            spill.append(new FileEvent(StandardWatchEventKinds.ENTRY_CREATE, dir.resolve("late.csv"), createdNanos));
+
+            List<FileEvent> replayed = new ArrayList<>();
+            spill.drain(1, replayed::add);
+            long ageMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - replayed.get(0).createdNanos());
+            assertTrue(ageMillis >= 4_900 && ageMillis < 10_000, "age " + ageMillis + " ms");
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.watcher.demowatcher.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.watcher.demowatcher.exception.InvalidRequestException;
+
+class ChunkedUploadTests {
+
+    private static final String ID = "6f1c2a9e-0000-4000-8000-000000000001";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void overlappingAndAdjacentChunksMergeInAnyOrder() throws Exception {
+        try (ChunkedUpload upload = ChunkedUpload.create(dir, ID, "report.csv", 100)) {
+            write(upload, 60, 10);
+            write(upload, 10, 20);
+            assertRanges(List.of(new long[] { 0, 10 }, new long[] { 30, 60 }, new long[] { 70, 100 }), upload);
+
+            // Overlaps the end of [10, 30) and touches [60, 70)
+            write(upload, 25, 35);
+            assertRanges(List.of(new long[] { 0, 10 }, new long[] { 70, 100 }), upload);
+            assertEquals(60, upload.getReceivedBytes());
+
+            // Covers a whole range and reaches past both neighbours
+            write(upload, 65, 35);
+            write(upload, 0, 12);
+            assertRanges(List.of(), upload);
+            assertEquals(100, upload.getReceivedBytes());
+        }
+    }
+
+    @Test
+    void missingRangesOfAnEmptyUploadIsTheWholeFile() throws Exception {
+        try (ChunkedUpload upload = ChunkedUpload.create(dir, ID, "report.csv", 100)) {
+            assertRanges(List.of(new long[] { 0, 100 }), upload);
+            assertEquals(0, upload.getReceivedBytes());
+        }
+    }
+
+    @Test
+    void rejectsChunksOutsideTheDeclaredSize() throws Exception {
+        try (ChunkedUpload upload = ChunkedUpload.create(dir, ID, "report.csv", 100)) {
+            assertThrows(InvalidRequestException.class, () -> write(upload, 100, 1));
+            assertThrows(InvalidRequestException.class, () -> write(upload, -1, 1));
+            assertThrows(InvalidRequestException.class, () -> write(upload, 90, 11));
+            assertEquals(0, upload.getReceivedBytes());
+        }
+    }
+
+    @Test
+    void completeWithGapsKeepsAcceptingChunks() throws Exception {
+        try (ChunkedUpload upload = ChunkedUpload.create(dir, ID, "report.csv", 100)) {
+            write(upload, 0, 50);
+            assertFalse(upload.beginComplete());
+
+            write(upload, 50, 50);
+            assertTrue(upload.beginComplete());
+        }
+    }
+
+    @Test
+    void completedUploadRefusesChunksAndASecondComplete() throws Exception {
+        try (ChunkedUpload upload = ChunkedUpload.create(dir, ID, "report.csv", 10)) {
+            write(upload, 0, 10);
+            assertTrue(upload.beginComplete());
+
+            assertThrows(InvalidRequestException.class, () -> write(upload, 0, 10));
+            assertThrows(InvalidRequestException.class, upload::beginComplete);
+            assertThrows(InvalidRequestException.class, upload::beginAbort);
+        }
+    }
+
+    @Test
+    void completeWaitsForChunksStillBeingWritten() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (ChunkedUpload upload = ChunkedUpload.create(dir, ID, "report.csv", 10)) {
+            CountDownLatch writing = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            // Hands over the first half, then blocks until released before the second
+            InputStream slowBody = new InputStream() {
+                private int position;
+
+                @Override
+                public int read() {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read(byte[] buffer) throws IOException {
+                    if (position == 5) {
+                        writing.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            throw new IOException(e);
+                        }
+                    }
+                    if (position == 10) {
+                        return -1;
+                    }
+                    position += 5;
+                    return 5;
+                }
+            };
+
+            Future<Long> writer = executor.submit(() -> upload.write(0, slowBody));
+            assertTrue(writing.await(10, TimeUnit.SECONDS));
+            Future<Boolean> complete = executor.submit(upload::beginComplete);
+            assertThrows(TimeoutException.class, () -> complete.get(200, TimeUnit.MILLISECONDS));
+
+            release.countDown();
+            assertEquals(10, writer.get(10, TimeUnit.SECONDS));
+            assertTrue(complete.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void loadReplaysTheRangeLog() throws Exception {
+        try (ChunkedUpload upload = ChunkedUpload.create(dir, ID, "report.csv", 100)) {
+            write(upload, 0, 10);
+            write(upload, 40, 20);
+        }
+        // A chunk torn mid-line by a crash is simply missing
+        Files.writeString(dir.resolve(ID + ".ranges"), "80\t", StandardOpenOption.APPEND);
+
+        try (ChunkedUpload upload = ChunkedUpload.load(dir, ID)) {
+            assertEquals("report.csv", upload.getOriginalFilename());
+            assertEquals(100, upload.getSize());
+            assertRanges(List.of(new long[] { 10, 40 }, new long[] { 60, 100 }), upload);
+        }
+    }
+
+    @Test
+    void loadNeverRecreatesDeletedFiles() throws Exception {
+        try (ChunkedUpload upload = ChunkedUpload.create(dir, ID, "report.csv", 10)) {
+            write(upload, 0, 10);
+            upload.close();
+            upload.delete();
+        }
+        assertNull(ChunkedUpload.load(dir, ID));
+
+        // Session left behind without its data file, as after a complete that moved the data away
+        Files.writeString(dir.resolve(ID + ".session"), "10\treport.csv");
+        assertNull(ChunkedUpload.load(dir, ID));
+        assertFalse(Files.exists(dir.resolve(ID + ".data")));
+        assertFalse(Files.exists(dir.resolve(ID + ".ranges")));
+    }
+
+    private static void write(ChunkedUpload upload, long offset, int length) throws IOException {
+        assertEquals(length, upload.write(offset, new ByteArrayInputStream(new byte[length])));
+    }
+
+    private static void assertRanges(List<long[]> expected, ChunkedUpload upload) {
+        List<long[]> missing = upload.getMissingRanges();
+        assertEquals(expected.size(), missing.size(), "missing ranges");
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i), missing.get(i));
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.watcher.demowatcher.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.watcher.demowatcher.analytics.TableProfile;
+
+import tools.jackson.databind.ObjectMapper;
+
+class CsvRangeSplitterTests {
+
+    // Quoted newlines, escaped quotes next to them and CRLF line ends, small enough to try every chunk size
+    private static final String TRICKY = "id,note,flag\r\n"
+            + "1,\"first line\nsecond line\",true\r\n"
+            + "2,\"she said \"\"hi\"\"\nthen left\",false\r\n"
+            + "3,\"\"\"\"\"\",true\n"
+            + "4,plain,false\r\n"
+            + "5,\"a,b\r\nc\"\"\nd\",true\r\n"
+            + "6,\"\",false\n"
+            + "7,last,true\r\n";
+
+    @TempDir
+    Path dir;
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void everyChunkSizeSplitsOnRecordBoundaries() throws Exception {
+        Path file = write("tricky.csv", TRICKY);
+        byte[] bytes = Files.readAllBytes(file);
+        Set<Long> boundaries = recordBoundaries(bytes);
+        List<List<String>> expected = records(TRICKY);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (long chunkSize = 1; chunkSize <= bytes.length; chunkSize++) {
+                long[] starts = CsvRangeSplitter.split(channel, bytes.length, chunkSize, pool);
+
+                assertEquals(0, starts[0]);
+                assertEquals(bytes.length, starts[starts.length - 1]);
+                List<List<String>> parsed = new ArrayList<>();
+                for (int i = 0; i < starts.length - 1; i++) {
+                    assertTrue(starts[i] < starts[i + 1], "ranges out of order with chunk size " + chunkSize);
+                    if (i > 0) {
+                        assertTrue(boundaries.contains(starts[i]),
+                                   "range starts inside a record at " + starts[i] + " with chunk size " + chunkSize);
+                    }
+                    parsed.addAll(records(new String(bytes, (int) starts[i], (int) (starts[i + 1] - starts[i]),
+                                                     StandardCharsets.UTF_8)));
+                }
+                assertEquals(expected, parsed, "records with chunk size " + chunkSize);
+            }
+        }
+    }
+
+    @Test
+    void quotedNewlineRightAtTheChunkEdgeIsNotABoundary() throws Exception {
+        String content = "a,b\n1,\"x\ny\"\n2,z\n";
+        Path file = write("edge.csv", content);
+        // The second chunk starts on the newline inside the quotes, the record ends at the next one
+        long chunkSize = content.indexOf("x\n") + 1;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] starts = CsvRangeSplitter.split(channel, content.length(), chunkSize, pool);
+            assertArrayEquals(new long[] { 0, content.indexOf("2,z"), content.length() }, starts);
+        }
+    }
+
+    @Test
+    void parallelProfileMatchesSequential() throws Exception {
+        Path file = dir.resolve("large.csv");
+        Random random = new Random(42);
+        StringBuilder csv = new StringBuilder("id,category,amount,note,active\r\n");
+        for (int row = 0; row < 60_000; row++) {
+            csv.append(row).append(',')
+               .append("cat-").append(random.nextInt(20)).append(',')
+               .append(random.nextInt(100_000) / 100.0).append(',');
+            switch (row % 4) {
+                case 0 -> csv.append("\"line ").append(row % 7).append("\nwrapped\"");
+                case 1 -> csv.append("\"quote \"\"").append(row % 5).append("\"\"\"");
+                case 2 -> csv.append("\"comma, ").append(row % 3).append('"');
+                default -> csv.append("");
+            }
+            csv.append(',').append(row % 3 == 0).append(row % 2 == 0 ? "\r\n" : "\n");
+        }
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+
+        CsvProcessorService service = new CsvProcessorService(new ObjectMapper());
+        ReflectionTestUtils.setField(service, "chunkMb", 1L);
+        ReflectionTestUtils.setField(service, "parallelThreads", 4);
+        service.init();
+        try {
+            TableProfile sequential = service.profileSequential(file);
+            TableProfile parallel = service.profileParallel(file, Files.size(file));
+
+            assertEquals(60_000, sequential.getRowCount());
+            assertEquals(sequential.getRowCount(), parallel.getRowCount());
+            assertEquals(sequential.getColumns().size(), parallel.getColumns().size());
+            for (int i = 0; i < sequential.getColumns().size(); i++) {
+                assertColumnEquals(sequential.getColumns().get(i).toMap(), parallel.getColumns().get(i).toMap());
+            }
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void strayQuoteInAnUnquotedFieldFallsBackToSequential() throws Exception {
+        Path file = dir.resolve("stray.csv");
+        // The 5" flips the quote parity for the rest of the file, so every split lands inside a quoted newline
+        StringBuilder csv = new StringBuilder("id,size,note\n1,5\" screen,plain\n");
+        for (int row = 2; row < 60_000; row++) {
+            csv.append(row).append(',').append(row % 17).append(",\"wrapped ").append(row % 5).append("\nline\"\n");
+        }
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+
+        CsvProcessorService service = new CsvProcessorService(new ObjectMapper());
+        ReflectionTestUtils.setField(service, "chunkMb", 1L);
+        ReflectionTestUtils.setField(service, "parallelThreads", 4);
+        service.init();
+        try {
+            TableProfile sequential = service.profileSequential(file);
+            TableProfile parallel = service.profileParallel(file, Files.size(file));
+
+            assertEquals(59_999, sequential.getRowCount());
+            assertEquals(sequential.getRowCount(), parallel.getRowCount());
+            for (int i = 0; i < sequential.getColumns().size(); i++) {
+                assertColumnEquals(sequential.getColumns().get(i).toMap(), parallel.getColumns().get(i).toMap());
+            }
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    // Merged running moments differ from a single pass only in rounding
+    private static void assertColumnEquals(Map<String, Object> expected, Map<String, Object> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<String, Object> entry : expected.entrySet()) {
+            Object value = actual.get(entry.getKey());
+            if (entry.getValue() instanceof Double number) {
+                assertEquals(number, (Double) value, 1e-9 * Math.max(1, Math.abs(number)),
+                             expected.get("name") + "." + entry.getKey());
+            } else {
+                assertEquals(entry.getValue(), value, expected.get("name") + "." + entry.getKey());
+            }
+        }
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(dir.resolve(name), content, StandardCharsets.UTF_8);
+    }
+
+    // Offsets just after every newline outside quotes
+    private static Set<Long> recordBoundaries(byte[] bytes) {
+        Set<Long> boundaries = new HashSet<>();
+        boolean quoted = false;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '"') {
+                quoted = !quoted;
+            } else if (bytes[i] == '\n' && !quoted) {
+                boundaries.add((long) i + 1);
+            }
+        }
+        return boundaries;
+    }
+
+    private static List<List<String>> records(String content) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        try (CSVParser parser = new CSVParser(new StringReader(content), CsvProcessorService.RANGE_FORMAT)) {
+            for (CSVRecord record : parser) {
+                records.add(record.toList());
+            }
+        }
+        return records;
+    }
+}
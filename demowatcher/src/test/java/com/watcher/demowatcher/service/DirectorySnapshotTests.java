@@ -0,0 +1,111 @@
+package com.watcher.demowatcher.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.watcher.demowatcher.service.DirectorySnapshot.Change;
+
+class DirectorySnapshotTests {
+
+    @Test
+    void removalKeepsProbeChainsThatWrapPastTheEnd() {
+        // Three names homed in the last slot of the initial 16 and one homed in slot 0,
+        // so the chain wraps to the start of the array and mixes with another home
+        List<String> lastSlot = namesWithSlot(15, 3);
+        String firstSlot = namesWithSlot(0, 1).get(0);
+
+        DirectorySnapshot snapshot = new DirectorySnapshot();
+        for (String name : lastSlot) {
+            snapshot.put(name, 10, 100);
+        }
+        snapshot.put(firstSlot, 10, 100);
+
+        snapshot.remove(lastSlot.get(0));
+        assertEquals(3, snapshot.size());
+        int epoch = snapshot.beginScan();
+        assertEquals(Change.UNCHANGED, snapshot.reconcile(lastSlot.get(1), 10, 100, epoch));
+        assertEquals(Change.UNCHANGED, snapshot.reconcile(lastSlot.get(2), 10, 100, epoch));
+        assertEquals(Change.UNCHANGED, snapshot.reconcile(firstSlot, 10, 100, epoch));
+        assertEquals(List.of(), snapshot.sweep(epoch));
+
+        snapshot.remove(lastSlot.get(2));
+        snapshot.remove(firstSlot);
+        assertEquals(1, snapshot.size());
+        epoch = snapshot.beginScan();
+        assertEquals(Change.UNCHANGED, snapshot.reconcile(lastSlot.get(1), 10, 100, epoch));
+        assertEquals(Change.CREATED, snapshot.reconcile(firstSlot, 10, 100, epoch));
+    }
+
+    @Test
+    void removingHalfOfManyEntriesLeavesTheRestFindable() {
+        DirectorySnapshot snapshot = new DirectorySnapshot();
+        for (int i = 0; i < 10_000; i++) {
+            snapshot.put("file-" + i + ".csv", i, i);
+        }
+        for (int i = 0; i < 10_000; i += 2) {
+            snapshot.remove("file-" + i + ".csv");
+        }
+        assertEquals(5_000, snapshot.size());
+
+        int epoch = snapshot.beginScan();
+        for (int i = 1; i < 10_000; i += 2) {
+            assertEquals(Change.UNCHANGED, snapshot.reconcile("file-" + i + ".csv", i, i, epoch), "file-" + i);
+        }
+        assertEquals(List.of(), snapshot.sweep(epoch));
+        assertEquals(Change.CREATED, snapshot.reconcile("file-0.csv", 0, 0, epoch));
+    }
+
+    @Test
+    void sweepRemovesOnlyEntriesNotSeenInTheScan() {
+        DirectorySnapshot snapshot = new DirectorySnapshot();
+        snapshot.put("a.csv", 1, 1);
+        snapshot.put("b.csv", 2, 2);
+        snapshot.put("c.csv", 3, 3);
+
+        int epoch = snapshot.beginScan();
+        snapshot.reconcile("a.csv", 1, 1, epoch);
+        snapshot.reconcile("c.csv", 3, 3, epoch);
+        assertEquals(List.of("b.csv"), snapshot.sweep(epoch));
+        assertEquals(2, snapshot.size());
+
+        // Entries put during a scan count as seen by it
+        epoch = snapshot.beginScan();
+        snapshot.put("d.csv", 4, 4);
+        assertEquals(Set.of("a.csv", "c.csv"), new HashSet<>(snapshot.sweep(epoch)));
+        assertEquals(1, snapshot.size());
+    }
+
+    @Test
+    void reconcileReportsChanges() {
+        DirectorySnapshot snapshot = new DirectorySnapshot();
+        int epoch = snapshot.beginScan();
+        assertEquals(Change.CREATED, snapshot.reconcile("a.csv", 10, 100, epoch));
+        assertEquals(Change.UNCHANGED, snapshot.reconcile("a.csv", 10, 100, epoch));
+        assertEquals(Change.MODIFIED, snapshot.reconcile("a.csv", 11, 100, epoch));
+        assertEquals(Change.MODIFIED, snapshot.reconcile("a.csv", 11, 101, epoch));
+
+        // Known only from an event, the first scan just fills in the attributes
+        snapshot.put("b.csv", DirectorySnapshot.UNKNOWN, DirectorySnapshot.UNKNOWN);
+        assertEquals(Change.UNCHANGED, snapshot.reconcile("b.csv", 5, 50, epoch));
+        assertEquals(Change.MODIFIED, snapshot.reconcile("b.csv", 6, 50, epoch));
+    }
+
+    // Same spreading as DirectorySnapshot.slot
+    private static List<String> namesWithSlot(int slot, int count) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; names.size() < count; i++) {
+            String name = "name-" + i;
+            int h = name.hashCode();
+            if (((h ^ (h >>> 16)) & 15) == slot) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+}